@@ -0,0 +1,24 @@
+package com.fbaron.tracker.core.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the music provider cannot take the call right now (e.g. it is rate limiting us) and the client
+ * should retry after {@link #getRetryAfter()}. Thrown on fast-fail paths (open circuit, full queue), so it
+ * skips the stack trace.
+ */
+public class ProviderUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ProviderUnavailableException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    /** Suggested wait before retrying. */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -2,11 +2,12 @@ package com.fbaron.tracker.core.exception;
 
 /**
  * Thrown when a track cannot be found (e.g. by ISRC in the provider or in local storage).
+ * An expected outcome mapped to 404, so no stack trace is captured.
  */
 public class TrackNotFoundException extends RuntimeException {
 
     public TrackNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
 }
@@ -0,0 +1,47 @@
+package com.fbaron.tracker.core.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.Setter;
+
+/**
+ * JFR event spanning one read-through cache lookup, including the load on a miss. Hits take microseconds, so
+ * with the threshold a recording holds the misses whose load was slow and the hits that waited on another
+ * caller's load.
+ */
+@Name(CacheAccessEvent.NAME)
+@Label("Cache Access")
+@Description("Read-through cache lookup")
+@Category({"Music Tracker", "Cache"})
+@StackTrace(false)
+@Threshold("10 ms")
+@Setter
+public class CacheAccessEvent extends Event {
+
+    public static final String NAME = "com.fbaron.tracker.CacheAccess";
+
+    @Label("Cache")
+    private String cache;
+
+    @Label("Key")
+    @Description("ISRC for tracks, file path for covers")
+    private String key;
+
+    @Label("Hit")
+    private boolean hit = true;
+
+    /** Creates the event and starts its clock; it counts as a hit until {@link #setHit} says otherwise. */
+    public static CacheAccessEvent start(String cache, String key) {
+        CacheAccessEvent event = new CacheAccessEvent();
+        event.cache = cache;
+        event.key = key;
+        event.begin();
+        return event;
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.fbaron.tracker.core.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.Setter;
+
+/**
+ * JFR event spanning one cover file operation: writing a downloaded cover, stat'ing one to revalidate a client's
+ * copy, opening one to serve it (its size and modification time are read; the bytes stream later) or reading one
+ * whole into the cover cache. Recorded when it takes at least the threshold.
+ */
+@Name(CoverIoEvent.NAME)
+@Label("Cover I/O")
+@Description("Cover image read or write on local storage")
+@Category({"Music Tracker", "Storage"})
+@StackTrace(false)
+@Threshold("20 ms")
+@Setter
+public class CoverIoEvent extends Event {
+
+    public static final String NAME = "com.fbaron.tracker.CoverIo";
+
+    @Label("Operation")
+    @Description("write, open or read")
+    private String operation;
+
+    @Label("Album ID")
+    private String albumId;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    /** Creates the event and starts its clock. */
+    public static CoverIoEvent start(String operation) {
+        CoverIoEvent event = new CoverIoEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+}
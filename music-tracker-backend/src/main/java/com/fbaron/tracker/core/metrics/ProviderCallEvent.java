@@ -0,0 +1,49 @@
+package com.fbaron.tracker.core.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.Setter;
+
+/**
+ * JFR event spanning one music provider call (track search, album lookup or cover download), recorded when it
+ * takes at least the threshold.
+ */
+@Name(ProviderCallEvent.NAME)
+@Label("Provider Call")
+@Description("Call to the music provider")
+@Category({"Music Tracker", "Provider"})
+@StackTrace(false)
+@Threshold("200 ms")
+@Setter
+public class ProviderCallEvent extends Event {
+
+    public static final String NAME = "com.fbaron.tracker.ProviderCall";
+
+    @Label("Operation")
+    @Description("search, album or cover-download")
+    private String operation;
+
+    @Label("ISRC")
+    private String isrCode;
+
+    @Label("Album ID")
+    private String albumId;
+
+    @Label("Outcome")
+    @Description("success, not-found or error")
+    private String outcome = "error";
+
+    /** Creates the event and starts its clock. */
+    public static ProviderCallEvent start(String operation) {
+        ProviderCallEvent event = new ProviderCallEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.fbaron.tracker.core.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.Setter;
+
+/**
+ * JFR event spanning one track registration, from the existence check to the insert. Recorded only when it
+ * takes at least the threshold, so a recording lists the slow registrations with their ISRC and album; the
+ * provider, cover and cache events inside it share its thread and time span.
+ */
+@Name(RegistrationEvent.NAME)
+@Label("Track Registration")
+@Description("Registration of a track by ISRC")
+@Category({"Music Tracker", "Registration"})
+@StackTrace(false)
+@Threshold("500 ms")
+@Setter
+public class RegistrationEvent extends Event {
+
+    public static final String NAME = "com.fbaron.tracker.Registration";
+
+    @Label("ISRC")
+    private String isrCode;
+
+    @Label("Album ID")
+    private String albumId;
+
+    @Label("Outcome")
+    @Description("existing, saved, concurrent or error")
+    private String outcome = "error";
+
+    /** Creates the event and starts its clock. */
+    public static RegistrationEvent start(String isrCode) {
+        RegistrationEvent event = new RegistrationEvent();
+        event.isrCode = isrCode;
+        event.begin();
+        return event;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.fbaron.tracker.core.metrics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-request breakdown of where the time went (database, provider search, cover download, disk...), kept in a
+ * thread local between {@link #start()} and {@link #clear()}. Stages are timed exclusively: a stage that runs
+ * inside another (the disk write inside the cover download) is subtracted from the outer one. Recording is a
+ * thread-local lookup and a map update, and nothing is recorded on threads that did not call {@link #start()}.
+ */
+public final class StageTimings {
+
+    private static final ThreadLocal<StageTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    /** Time spent in nested stages, per open stage. */
+    private long[] nestedNanos = new long[4];
+    private int depth;
+
+    private StageTimings() {
+    }
+
+    /** Starts collecting on the current thread, replacing anything collected before. */
+    public static StageTimings start() {
+        StageTimings timings = new StageTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /** The timings collected on the current thread, or null when collection was not started. */
+    public static StageTimings current() {
+        return CURRENT.get();
+    }
+
+    /** Stops collecting on the current thread. */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Opens a stage on the current thread, if collecting.
+     *
+     * @return the start time to pass to {@link #exit}
+     */
+    public static long enter() {
+        StageTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.push();
+        }
+        return System.nanoTime();
+    }
+
+    /** Closes the stage opened by the matching {@link #enter()} and adds its own time to {@code stage}. */
+    public static void exit(String stage, long startNanos) {
+        StageTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.pop(stage, System.nanoTime() - startNanos);
+        }
+    }
+
+    /** Nanoseconds since {@link #start()}. */
+    public long totalNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /** Visits the stages in the order they first ran, with their accumulated nanoseconds. */
+    public void forEach(BiConsumer<String, Long> stage) {
+        stageNanos.forEach(stage);
+    }
+
+    private void push() {
+        depth++;
+        if (depth == nestedNanos.length) {
+            nestedNanos = Arrays.copyOf(nestedNanos, depth * 2);
+        }
+        nestedNanos[depth] = 0;
+    }
+
+    private void pop(String stage, long elapsedNanos) {
+        if (depth == 0) {
+            return;
+        }
+        long own = elapsedNanos - nestedNanos[depth];
+        depth--;
+        nestedNanos[depth] += elapsedNanos;
+        stageNanos.merge(stage, Math.max(0, own), Long::sum);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.fbaron.tracker.core.model;
+
+import java.io.InputStream;
+
+/**
+ * Cover image content served to clients, independent of where the bytes live (file or memory buffer).
+ */
+public interface CoverImage {
+
+    /** Size of the image in bytes. */
+    long contentLength();
+
+    /** When the stored cover was last written, in epoch milliseconds; used as the HTTP validator. */
+    long lastModified();
+
+    /** Opens a new stream over the image bytes, positioned at the start; the caller closes it. */
+    InputStream openStream();
+
+}
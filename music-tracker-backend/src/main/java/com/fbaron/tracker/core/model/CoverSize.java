@@ -0,0 +1,24 @@
+package com.fbaron.tracker.core.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cover sizes served to clients: thumbnails for lists, a medium image for detail pages, and the stored
+ * original. Smaller sizes are derived from the original and never upscaled.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CoverSize {
+
+    /** Track list thumbnails. */
+    SMALL(64),
+    /** Track detail page. */
+    MEDIUM(300),
+    /** The image as downloaded from the provider. */
+    ORIGINAL(0);
+
+    /** Longest side in pixels; 0 for the original. */
+    private final int maxDimension;
+
+}
@@ -0,0 +1,11 @@
+package com.fbaron.tracker.core.model;
+
+/**
+ * A cover written to a temp file by {@code FileStorageRepository.stageCover} but not yet visible at its final path.
+ *
+ * @param albumId    album the cover belongs to
+ * @param stagedPath absolute path of the temp file
+ * @param bytes      size of the cover in bytes
+ */
+public record StagedCover(String albumId, String stagedPath, long bytes) {
+}
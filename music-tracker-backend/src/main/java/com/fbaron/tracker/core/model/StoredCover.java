@@ -0,0 +1,12 @@
+package com.fbaron.tracker.core.model;
+
+/**
+ * A cover file as seen by {@code FileStorageRepository.statCover}: where it is and the attributes that validate
+ * a cached copy, read without opening the file.
+ *
+ * @param path          absolute path of the cover (or of one of its size variants)
+ * @param contentLength size of the file in bytes
+ * @param lastModified  last modification time, in epoch milliseconds
+ */
+public record StoredCover(String path, long contentLength, long lastModified) {
+}
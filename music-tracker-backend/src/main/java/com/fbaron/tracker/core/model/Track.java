@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
  * Holds metadata (ISRC, name, artist, album, duration) and the local path to the cover image.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Track {
@@ -31,5 +31,7 @@ public class Track {
     private Long playbackSeconds;
     /** Absolute path to the cover image file on disk. */
     private String coverPath;
+    /** Provider URL of the cover image carried in the search result; transient, not persisted. */
+    private String coverUrl;
 
 }
@@ -2,6 +2,13 @@ package com.fbaron.tracker.core.repository;
 
 import com.fbaron.tracker.core.exception.FileReadException;
 import com.fbaron.tracker.core.exception.StorageException;
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.CoverSize;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.StoredCover;
+
+import java.io.InputStream;
+import java.util.OptionalLong;
 
 /**
  * Port for storing and reading binary files (e.g. cover images) on disk.
@@ -9,14 +16,38 @@ import com.fbaron.tracker.core.exception.StorageException;
 public interface FileStorageRepository {
 
     /**
-     * Writes content to disk, keyed by ISRC (e.g. {@code isrCode + ".jpg"}).
+     * Writes content to disk, keyed by album ID (e.g. {@code albumId + ".jpg"}) so tracks of one album share it.
+     * The content is copied through a bounded buffer and only becomes visible at the final path once complete.
      *
-     * @param isrCode  identifier used to derive the file path
-     * @param content  raw bytes to write
+     * @param albumId  identifier used to derive the file path
+     * @param content  raw bytes to write, read to the end but not closed
      * @return the absolute path of the written file
      * @throws StorageException if write fails
      */
-    String saveToDisk(String isrCode, byte[] content);
+    default String saveToDisk(String albumId, InputStream content) {
+        return publishCover(stageCover(albumId, content));
+    }
+
+    /**
+     * First half of {@link #saveToDisk}: copies the content into a temp file next to the cover's final path,
+     * so the caller can release the source (e.g. a provider connection) before {@link #publishCover}.
+     *
+     * @param albumId  identifier used to derive the file path
+     * @param content  raw bytes to write, read to the end but not closed
+     * @return the staged cover
+     * @throws StorageException if write fails; nothing is left behind
+     */
+    StagedCover stageCover(String albumId, InputStream content);
+
+    /**
+     * Second half of {@link #saveToDisk}: moves a staged cover to its final path, replacing any previous cover
+     * and its variants. The temp file is gone afterwards, also when the move fails.
+     *
+     * @param staged cover returned by {@link #stageCover}
+     * @return the absolute path of the written file
+     * @throws StorageException if the move fails
+     */
+    String publishCover(StagedCover staged);
 
     /**
      * Reads file content from the given path.
@@ -27,4 +58,43 @@ public interface FileStorageRepository {
      */
     byte[] readFromDisk(String path);
 
+    /**
+     * Opens a cover image for streaming, without reading its bytes into the heap; implementations may answer
+     * from memory instead of the file.
+     *
+     * @param path absolute path to the file
+     * @return the cover content
+     * @throws FileReadException if read fails
+     */
+    CoverImage readCover(String path);
+
+    /**
+     * Returns the size and modification time of a cover without opening it or loading it into a cache, so a
+     * conditional request can be answered before {@link #readCover}.
+     *
+     * @param path absolute path to the file
+     * @return the cover's attributes
+     * @throws FileReadException if the file cannot be stat'ed
+     */
+    StoredCover statCover(String path);
+
+    /**
+     * Returns the path of the cover in the given size, generating the variant next to the original the first
+     * time it is asked for. {@link CoverSize#ORIGINAL} is the path itself.
+     *
+     * @param path absolute path to the original cover
+     * @param size the requested size
+     * @return absolute path to the variant file
+     * @throws FileReadException if the original cannot be read or the variant cannot be written
+     */
+    String coverVariant(String path, CoverSize size);
+
+    /**
+     * Returns the size of the file at the given path.
+     *
+     * @param path absolute path to the file
+     * @return the size in bytes, or empty if the file does not exist
+     */
+    OptionalLong sizeOf(String path);
+
 }
\ No newline at end of file
@@ -5,6 +5,9 @@ import com.fbaron.tracker.core.exception.ProviderAuthenticationException;
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
 import com.fbaron.tracker.core.model.Track;
 
+import java.io.InputStream;
+import java.util.function.Function;
+
 /**
  * Port for fetching track metadata and cover images from an external music provider (e.g. Spotify).
  */
@@ -21,13 +24,25 @@ public interface MusicProviderRepository {
     Track fetchMetadata(String isrCode);
 
     /**
-     * Fetches the cover image bytes for an album.
+     * Fetches the cover image for an album by looking the album up first and hands its bytes to {@code reader}
+     * as a stream. Fallback for when the search result carried no cover URL (see {@link Track#getCoverUrl()}).
      *
      * @param albumId provider's album ID (e.g. Spotify album ID)
-     * @return raw image bytes (e.g. JPEG)
+     * @param reader  consumes the raw image (e.g. JPEG) while the response is open; the stream is closed after
+     * @return what {@code reader} returned
      * @throws ImageNotFoundException if the album has no images
      * @throws ProviderAuthenticationException if provider auth fails
      */
-    byte[] fetchCoverImage(String albumId);
+    <T> T fetchCoverImage(String albumId, Function<InputStream, T> reader);
+
+    /**
+     * Downloads the cover image from a URL already returned by {@link #fetchMetadata(String)} and hands its
+     * bytes to {@code reader} as a stream, so the image is never held on the heap as a whole.
+     *
+     * @param imageUrl provider's image URL
+     * @param reader   consumes the raw image (e.g. JPEG) while the response is open; the stream is closed after
+     * @return what {@code reader} returned
+     */
+    <T> T downloadCoverImage(String imageUrl, Function<InputStream, T> reader);
 
 }
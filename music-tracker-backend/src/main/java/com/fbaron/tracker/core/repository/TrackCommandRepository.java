@@ -15,4 +15,13 @@ public interface TrackCommandRepository {
      */
     Track save(Track track);
 
+    /**
+     * Inserts a track unless one with the same ISRC is already stored, as a single atomic operation; an existing
+     * track is left untouched.
+     *
+     * @param track the track to insert
+     * @return true if this call stored the track, false if the ISRC was already registered
+     */
+    boolean insertIfAbsent(Track track);
+
 }
@@ -17,4 +17,12 @@ public interface TrackQueryRepository {
      */
     Optional<Track> findByIsrCode(String isrCode);
 
+    /**
+     * Looks up the cover path already stored for an album (covers are shared by all tracks of an album).
+     *
+     * @param albumId provider's album ID
+     * @return the cover path of any track of the album that has one, otherwise empty
+     */
+    Optional<String> findCoverPathByAlbumId(String albumId);
+
 }
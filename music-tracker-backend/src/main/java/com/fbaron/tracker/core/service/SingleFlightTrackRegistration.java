@@ -0,0 +1,78 @@
+package com.fbaron.tracker.core.service;
+
+import com.fbaron.tracker.core.model.RegistrationResult;
+import com.fbaron.tracker.core.usecase.RegisterTrackUseCase;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight decorator for {@link RegisterTrackUseCase}: concurrent registrations of the same ISRC
+ * are coalesced so only the first caller (the leader) hits the provider, storage and database.
+ * The other callers wait on the leader's in-flight future and get its track with {@code saved=false}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SingleFlightTrackRegistration implements RegisterTrackUseCase {
+
+    private final RegisterTrackUseCase delegate;
+
+    private final ConcurrentMap<String, CompletableFuture<RegistrationResult>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder led = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @Override
+    public RegistrationResult register(String isrCode) {
+        CompletableFuture<RegistrationResult> flight = new CompletableFuture<>();
+        CompletableFuture<RegistrationResult> leader = inFlight.putIfAbsent(isrCode, flight);
+        if (leader != null) {
+            coalesced.increment();
+            log.info("Registration already in flight, waiting for leader: isrCode={}", isrCode);
+            return new RegistrationResult(await(leader).track(), false);
+        }
+
+        led.increment();
+        try {
+            RegistrationResult result = delegate.register(isrCode);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(isrCode, flight);
+        }
+    }
+
+    /** Number of registrations that did the work themselves. */
+    public long getLedCount() {
+        return led.sum();
+    }
+
+    /** Number of registrations that joined an in-flight registration of the same ISRC. */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** Number of ISRCs currently being registered. */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static RegistrationResult await(CompletableFuture<RegistrationResult> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+}
@@ -1,7 +1,12 @@
 package com.fbaron.tracker.core.service;
 
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.metrics.RegistrationEvent;
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.CoverSize;
 import com.fbaron.tracker.core.model.RegistrationResult;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.StoredCover;
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.core.repository.FileStorageRepository;
 import com.fbaron.tracker.core.repository.MusicProviderRepository;
@@ -15,7 +20,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.InputStream;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * Application service implementing track registration, retrieval, and cover image delivery.
@@ -30,18 +39,39 @@ public class TrackService implements RegisterTrackUseCase, GetTrackUseCase, GetC
     private final FileStorageRepository fileStorageRepository;
     private final TrackCommandRepository trackCommandRepository;
 
+    private final LongAdder coversReused = new LongAdder();
+    private final LongAdder coverBytesReused = new LongAdder();
+
     /**
-     * Registers a track by ISRC: checks if already stored; if not, fetches metadata and cover
-     * from the provider, saves the cover to disk, and persists the track.
+     * Registers a track by ISRC: checks if already stored; if not, fetches metadata from the provider,
+     * reuses the album's stored cover or downloads and saves it, and inserts the track. Whether it was newly
+     * saved comes from the insert itself, so a concurrent registration of the same ISRC yields saved=false.
+     * <p>
+     * Deliberately not one transaction: the lookup, the album cover lookup and the insert each borrow a database
+     * connection only for their own statement, so none is held during the provider calls (seconds when the
+     * provider is slow). This relies on the adapters running each call in its own short transaction and on the
+     * web layer not keeping a session open for the request.
+     * <p>
+     * A registration slower than its threshold is recorded as a {@link RegistrationEvent} when JFR is running.
      */
     @Override
     public RegistrationResult register(String isrCode) {
+        RegistrationEvent event = RegistrationEvent.start(isrCode);
+        try {
+            return register(isrCode, event);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private RegistrationResult register(String isrCode, RegistrationEvent event) {
         // 1. check if it already exists //No need to care about updating an already existing ISRC,
         // skipping or giving back an error is enough.
         Optional<Track> existingTrack = trackQueryRepository.findByIsrCode(isrCode);
 
         if (existingTrack.isPresent()) {
             log.info("Track already registered, returning existing: isrCode = {}", isrCode);
+            event.setOutcome("existing");
             return new RegistrationResult(existingTrack.get(), false);
         }
 
@@ -49,20 +79,72 @@ public class TrackService implements RegisterTrackUseCase, GetTrackUseCase, GetC
 
         // 2. Fetch from Spotify
         Track track = musicProviderRepository.fetchMetadata(isrCode);
+        event.setAlbumId(track.getAlbumId());
 
-        // 3. Store the image
-        byte[] imageBytes = musicProviderRepository.fetchCoverImage(track.getAlbumId());
-        String imagePath = fileStorageRepository.saveToDisk(isrCode, imageBytes);
+        // 3. Covers belong to the album: reuse the stored one, otherwise download and store it once
+        String imagePath = findStoredAlbumCover(track.getAlbumId())
+                .orElseGet(() -> storeAlbumCover(track));
 
         // 4. updated the object with the image localization
         track.setCoverPath(imagePath);
 
-        // Persist the track to DB and return the RegistrationResult
-        track = trackCommandRepository.save(track);
+        // 5. Insert in one atomic step; if a concurrent registration (e.g. on another instance) stored the ISRC
+        // since step 1, the database says so and its track is returned instead
+        if (!trackCommandRepository.insertIfAbsent(track)) {
+            log.info("Track registered concurrently, returning stored one: isrCode={}", isrCode);
+            event.setOutcome("concurrent");
+            return new RegistrationResult(trackQueryRepository.findByIsrCode(isrCode).orElse(track), false);
+        }
         log.info("Track registered successfully: isrCode={}, name={}", isrCode, track.getName());
+        event.setOutcome("saved");
         return new RegistrationResult(track, true);
     }
 
+    /**
+     * Returns the cover path already stored for the album, if another track of it was registered
+     * and the file is still on disk.
+     */
+    private Optional<String> findStoredAlbumCover(String albumId) {
+        Optional<String> coverPath = trackQueryRepository.findCoverPathByAlbumId(albumId);
+        if (coverPath.isEmpty()) {
+            return Optional.empty();
+        }
+        OptionalLong size = fileStorageRepository.sizeOf(coverPath.get());
+        if (size.isEmpty()) {
+            log.warn("Stored album cover missing on disk, downloading again: albumId={}", albumId);
+            return Optional.empty();
+        }
+        coversReused.increment();
+        coverBytesReused.add(size.getAsLong());
+        log.info("Reusing stored album cover: albumId={}", albumId);
+        return coverPath;
+    }
+
+    /**
+     * Downloads the album cover (the search result already carries its URL; the album lookup is a fallback)
+     * and stores it keyed by album ID. The response body is piped straight to storage, so the image is never
+     * held on the heap whatever its size. It is only staged during the provider call and published once the
+     * call returned, so moving it into place holds no rate-limit permit and is not timed by the circuit breaker.
+     */
+    private String storeAlbumCover(Track track) {
+        String albumId = track.getAlbumId();
+        Function<InputStream, StagedCover> stage = image -> fileStorageRepository.stageCover(albumId, image);
+        StagedCover staged = track.getCoverUrl() != null
+                ? musicProviderRepository.downloadCoverImage(track.getCoverUrl(), stage)
+                : musicProviderRepository.fetchCoverImage(albumId, stage);
+        return fileStorageRepository.publishCover(staged);
+    }
+
+    /** Number of registrations that reused an album cover instead of downloading it. */
+    public long getCoversReused() {
+        return coversReused.sum();
+    }
+
+    /** Cover bytes neither downloaded nor written again thanks to album-keyed covers. */
+    public long getCoverBytesReused() {
+        return coverBytesReused.sum();
+    }
+
     /**
      * Returns the stored track for the given ISRC.
      */
@@ -76,17 +158,26 @@ public class TrackService implements RegisterTrackUseCase, GetTrackUseCase, GetC
     }
 
     /**
-     * Returns the cover image bytes for the track with the given ISRC (read from local storage).
+     * Finds the cover for the track with the given ISRC in the requested size (a missing size variant is
+     * generated from the stored original first) and stats it; the image itself is not read.
      */
     @Override
-    public byte[] getCoverImage(String isrCode) {
+    public StoredCover findCover(String isrCode, CoverSize size) {
         Track track = trackQueryRepository.findByIsrCode(isrCode)
                 .orElseThrow(() -> {
                     log.error("Track not found for cover: isrCode={}", isrCode);
                     return new TrackNotFoundException("Track not found with ISRC: " + isrCode);
                 });
 
-        return fileStorageRepository.readFromDisk(track.getCoverPath());
+        return fileStorageRepository.statCover(fileStorageRepository.coverVariant(track.getCoverPath(), size));
+    }
+
+    /**
+     * Opens the cover image for streaming (from local storage or its cache).
+     */
+    @Override
+    public CoverImage getCoverImage(StoredCover cover) {
+        return fileStorageRepository.readCover(cover.path());
     }
 
 }
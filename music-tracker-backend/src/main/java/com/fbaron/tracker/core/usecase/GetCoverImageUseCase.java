@@ -2,20 +2,34 @@ package com.fbaron.tracker.core.usecase;
 
 import com.fbaron.tracker.core.exception.FileReadException;
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.CoverSize;
+import com.fbaron.tracker.core.model.StoredCover;
 
 /**
- * Use case: retrieve cover image bytes for a track by ISRC (from local storage).
+ * Use case: retrieve the cover image of a track by ISRC (from local storage or its in-memory cache). Finding the
+ * cover and reading it are separate steps, so a caller can revalidate a client's copy without reading the image.
  */
 public interface GetCoverImageUseCase {
 
     /**
-     * Returns the cover image bytes for the track with the given ISRC.
+     * Finds the cover for the track with the given ISRC in the requested size, with its size and modification time.
      *
      * @param isrCode International Standard Recording Code
-     * @return raw image bytes (e.g. JPEG)
+     * @param size    the size to serve; variants are derived from the stored original on first use
+     * @return the stored cover, not yet opened
      * @throws TrackNotFoundException if track not found
+     * @throws FileReadException if the cover file cannot be found or stat'ed
+     */
+    StoredCover findCover(String isrCode, CoverSize size);
+
+    /**
+     * Opens a cover returned by {@link #findCover} for streaming.
+     *
+     * @param cover the cover to read
+     * @return the image content (e.g. JPEG)
      * @throws FileReadException if reading the file fails
      */
-    byte[] getCoverImage(String isrCode);
+    CoverImage getCoverImage(StoredCover cover);
 
 }
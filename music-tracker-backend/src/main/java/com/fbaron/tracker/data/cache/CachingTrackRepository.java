@@ -0,0 +1,142 @@
+package com.fbaron.tracker.data.cache;
+
+import com.fbaron.tracker.core.metrics.CacheAccessEvent;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.TrackCommandRepository;
+import com.fbaron.tracker.core.repository.TrackQueryRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache in front of the track query/command ports. Track rows never change after
+ * registration, so entries live until evicted by the weight bound (Caffeine's W-TinyLFU keeps the
+ * frequently read tracks). Concurrent misses for one ISRC share a single load, which runs outside the
+ * cache's locks (see {@link CoalescedLoad}). Unknown ISRCs are remembered for a short TTL so repeated
+ * lookups skip the database. Saves and inserts populate the cache and clear the negative entry.
+ * Hit/miss/eviction stats are published as {@code cache.*{cache=tracks}}.
+ */
+@Slf4j
+public class CachingTrackRepository implements TrackQueryRepository, TrackCommandRepository, MeterBinder {
+
+    static final String CACHE_NAME = "tracks";
+
+    /** Rough per-entry overhead (entry, Track object, headers of its strings) on top of the characters. */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private static final long MAX_NEGATIVE_ENTRIES = 100_000;
+
+    private final TrackQueryRepository queryDelegate;
+    private final TrackCommandRepository commandDelegate;
+    private final AsyncCache<String, Track> cache;
+    private final Cache<String, Boolean> misses;
+    private final LongAdder negativeHits = new LongAdder();
+
+    public CachingTrackRepository(TrackQueryRepository queryDelegate,
+                                  TrackCommandRepository commandDelegate,
+                                  long maxWeightBytes,
+                                  Duration negativeTtl) {
+        this.queryDelegate = queryDelegate;
+        this.commandDelegate = commandDelegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String isrCode, Track track) -> weigh(track))
+                .recordStats()
+                .buildAsync();
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(MAX_NEGATIVE_ENTRIES)
+                .expireAfterWrite(negativeTtl)
+                .build();
+    }
+
+    @Override
+    public Optional<Track> findByIsrCode(String isrCode) {
+        if (misses.getIfPresent(isrCode) != null
+                && cache.synchronous().policy().getIfPresentQuietly(isrCode) == null) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+        CacheAccessEvent event = CacheAccessEvent.start(CACHE_NAME, isrCode);
+        Track track;
+        try {
+            track = CoalescedLoad.get(cache, isrCode, key -> {
+                event.setHit(false);
+                return queryDelegate.findByIsrCode(key).orElse(null);
+            });
+        } finally {
+            event.commit();
+        }
+        if (track == null) {
+            misses.put(isrCode, Boolean.TRUE);
+            return Optional.empty();
+        }
+        return Optional.of(copy(track));
+    }
+
+    @Override
+    public Optional<String> findCoverPathByAlbumId(String albumId) {
+        return queryDelegate.findCoverPathByAlbumId(albumId);
+    }
+
+    @Override
+    public Track save(Track track) {
+        Track saved = commandDelegate.save(track);
+        cache.synchronous().put(saved.getIsrCode(), copy(saved));
+        misses.invalidate(saved.getIsrCode());
+        return saved;
+    }
+
+    @Override
+    public boolean insertIfAbsent(Track track) {
+        boolean inserted = commandDelegate.insertIfAbsent(track);
+        if (inserted) {
+            cache.synchronous().put(track.getIsrCode(), copy(track));
+        }
+        // stored either way now: a lost race must not be answered from the negative entry
+        misses.invalidate(track.getIsrCode());
+        return inserted;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), CACHE_NAME);
+        FunctionCounter.builder("tracks.negative.cache.hits", negativeHits, LongAdder::sum)
+                .description("Lookups of unknown ISRCs answered without a round trip")
+                .tag("source", "database")
+                .register(registry);
+    }
+
+    /** Number of tracks currently cached. */
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /** Callers get their own mutable {@link Track}, never the cached instance. */
+    private static Track copy(Track track) {
+        return track.toBuilder().build();
+    }
+
+    /** Approximate retained size in bytes (UTF-16 characters plus fixed overhead). */
+    static int weigh(Track track) {
+        return ENTRY_OVERHEAD_BYTES + 2 * (length(track.getIsrCode())
+                + length(track.getName())
+                + length(track.getArtistName())
+                + length(track.getAlbumName())
+                + length(track.getAlbumId())
+                + length(track.getCoverPath()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+}
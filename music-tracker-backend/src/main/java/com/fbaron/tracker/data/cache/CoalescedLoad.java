@@ -0,0 +1,43 @@
+package com.fbaron.tracker.data.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Read-through lookup that runs the load on the calling thread, outside Caffeine's map locks.
+ * {@code Cache.get(key, loader)} runs the loader inside {@code ConcurrentHashMap.compute}, i.e. in a
+ * {@code synchronized} block, which pins a virtual thread to its carrier for the whole database or file read.
+ * Here only an empty future is installed under the lock; the caller that installed it loads and completes it,
+ * concurrent callers for the same key wait on that future (parking, not pinning). As with {@code Cache.get},
+ * a null or failed load leaves nothing cached and hit/miss/load stats are recorded.
+ */
+public final class CoalescedLoad {
+
+    private CoalescedLoad() {
+    }
+
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(key, (k, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(loader.apply(key));
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.fbaron.tracker.data.config;
+
+import com.fbaron.tracker.data.provider.AdaptiveRateLimiter;
+import com.fbaron.tracker.data.provider.RetryAfterInterceptor;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+/**
+ * Outbound HTTP clients of the provider adapters: pooled keep-alive Apache HttpClient engines, one for the
+ * Spotify API (JSON, gzip) and one for the image CDN (already-compressed bytes), so slow image downloads cannot
+ * exhaust the connections API calls need. Both RestClients come from Boot's builder, which records
+ * {@code http.client.requests} per host ({@code client.name}); pool usage is published as
+ * {@code httpcomponents.httpclient.pool.*} tagged {@code httpclient=spotify-api|cover-cdn}.
+ */
+@Configuration
+@EnableConfigurationProperties(ProviderHttpClientProperties.class)
+public class ProviderHttpClientConfig {
+
+    /** HttpClient's default also retries 429/503 once; 429 handling is left to {@link RetryAfterInterceptor}. */
+    private static final HttpRequestRetryStrategy IO_RETRIES_ONLY =
+            new DefaultHttpRequestRetryStrategy(1, TimeValue.ofSeconds(1)) {
+                @Override
+                public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+                    return false;
+                }
+            };
+
+    @Bean
+    public PoolingHttpClientConnectionManager spotifyConnectionManager(ProviderHttpClientProperties properties) {
+        return connectionManager(properties.spotify());
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager coverImageConnectionManager(ProviderHttpClientProperties properties) {
+        return connectionManager(properties.cdn());
+    }
+
+    @Bean
+    public CloseableHttpClient spotifyHttpClient(PoolingHttpClientConnectionManager spotifyConnectionManager,
+                                                 ProviderHttpClientProperties properties) {
+        return httpClient(spotifyConnectionManager, properties.spotify());
+    }
+
+    @Bean
+    public CloseableHttpClient coverImageHttpClient(PoolingHttpClientConnectionManager coverImageConnectionManager,
+                                                    ProviderHttpClientProperties properties) {
+        return httpClient(coverImageConnectionManager, properties.cdn());
+    }
+
+    /**
+     * Builds the RestClient used for Spotify API and token calls (base URL from config). 429 responses are
+     * reported to the rate limiter and GETs retried per {@code app.provider.retry.*}.
+     */
+    @Bean
+    public RestClient spotifyRestClient(RestClient.Builder builder,
+                                        CloseableHttpClient spotifyHttpClient,
+                                        AdaptiveRateLimiter providerRateLimiter,
+                                        @Value("${spotify.api-base-url}") String apiBaseUrl,
+                                        @Value("${app.provider.retry.max-attempts:3}") int maxAttempts,
+                                        @Value("${app.provider.retry.base-backoff:200ms}") Duration baseBackoff,
+                                        @Value("${app.provider.retry.max-wait:5s}") Duration maxWait) {
+        return builder.clone()
+                .baseUrl(apiBaseUrl)
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(spotifyHttpClient))
+                .requestInterceptor(new RetryAfterInterceptor(providerRateLimiter, maxAttempts, baseBackoff, maxWait))
+                .build();
+    }
+
+    /**
+     * Builds the RestClient used to download cover images from the absolute CDN URLs Spotify returns.
+     */
+    @Bean
+    public RestClient coverImageRestClient(RestClient.Builder builder, CloseableHttpClient coverImageHttpClient) {
+        return builder.clone()
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(coverImageHttpClient))
+                .build();
+    }
+
+    @Bean
+    public MeterBinder spotifyConnectionPoolMetrics(PoolingHttpClientConnectionManager spotifyConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(spotifyConnectionManager, "spotify-api");
+    }
+
+    @Bean
+    public MeterBinder coverImageConnectionPoolMetrics(PoolingHttpClientConnectionManager coverImageConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(coverImageConnectionManager, "cover-cdn");
+    }
+
+    private static PoolingHttpClientConnectionManager connectionManager(ProviderHttpClientProperties.Pool pool) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.maxTotal())
+                .setMaxConnPerRoute(pool.maxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(pool.connectTimeout()))
+                        .setSocketTimeout(timeout(pool.readTimeout()))
+                        .setTimeToLive(TimeValue.ofMilliseconds(pool.connectionTtl().toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    private static CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager,
+                                                  ProviderHttpClientProperties.Pool pool) {
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout(pool.poolTimeout()))
+                        .setResponseTimeout(timeout(pool.readTimeout()))
+                        .build())
+                .setRetryStrategy(IO_RETRIES_ONLY)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(pool.idleTimeout().toMillis()));
+        if (!pool.compression()) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+}
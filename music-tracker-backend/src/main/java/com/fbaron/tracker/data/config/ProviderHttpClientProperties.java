@@ -0,0 +1,35 @@
+package com.fbaron.tracker.data.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings of the outbound provider clients ({@code app.http-client.*}): one pool
+ * for the Spotify API and token endpoint, one for the image CDN.
+ */
+@ConfigurationProperties(prefix = "app.http-client")
+public record ProviderHttpClientProperties(@DefaultValue Pool spotify, @DefaultValue Pool cdn) {
+
+    /**
+     * @param maxTotal       connections across all hosts
+     * @param maxPerRoute    connections to one host
+     * @param connectTimeout TCP/TLS connect timeout
+     * @param readTimeout    socket inactivity timeout while waiting for response bytes
+     * @param poolTimeout    how long a request waits for a free pooled connection
+     * @param idleTimeout    idle connections are closed after this long
+     * @param connectionTtl  connections are not reused past this age (picks up DNS changes)
+     * @param compression    whether to send {@code Accept-Encoding: gzip, deflate} and decode responses
+     */
+    public record Pool(@DefaultValue("50") int maxTotal,
+                       @DefaultValue("20") int maxPerRoute,
+                       @DefaultValue("2s") Duration connectTimeout,
+                       @DefaultValue("5s") Duration readTimeout,
+                       @DefaultValue("1s") Duration poolTimeout,
+                       @DefaultValue("30s") Duration idleTimeout,
+                       @DefaultValue("5m") Duration connectionTtl,
+                       @DefaultValue("true") boolean compression) {
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.fbaron.tracker.data.config;
+
+import com.fbaron.tracker.core.service.TrackService;
+import com.fbaron.tracker.data.jpa.ReplicaFallbackTrackQueryRepository;
+import com.fbaron.tracker.data.jpa.ReplicaLagWindow;
+import com.fbaron.tracker.data.jpa.TrackJpaAdapter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read replica ({@code app.datasource.replica.*}, off by default): two Hikari pools, {@code primary} from
+ * {@code spring.datasource.*} and a read-only {@code replica}, each with its own {@code .hikari} settings and
+ * {@code hikaricp.*} metrics (tagged {@code pool}). The {@code DataSource} used by JPA and JDBC hands read-only
+ * transactions (the query port's) a replica connection and everything else a primary one; the choice is made
+ * lazily at the first statement, once the transaction's read-only flag is known. Flyway keeps migrating the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    /**
+     * How long after a local write replica misses are confirmed on the primary
+     * ({@code app.datasource.replica.lag-window}); registered with the transaction manager by Boot.
+     */
+    @Bean
+    public ReplicaLagWindow replicaLagWindow(@Value("${app.datasource.replica.lag-window:5s}") Duration lag) {
+        return new ReplicaLagWindow(lag);
+    }
+
+    /**
+     * Query port with read-your-writes. Sits under the track cache, or directly under {@link TrackService} without
+     * it (wired in {@link TrackBeanConfig}).
+     */
+    @Bean
+    public ReplicaFallbackTrackQueryRepository replicaFallbackTrackQueryRepository(
+            TrackJpaAdapter trackJpaAdapter,
+            ReplicaLagWindow replicaLagWindow,
+            PlatformTransactionManager transactionManager) {
+        return new ReplicaFallbackTrackQueryRepository(trackJpaAdapter, replicaLagWindow, transactionManager);
+    }
+
+}
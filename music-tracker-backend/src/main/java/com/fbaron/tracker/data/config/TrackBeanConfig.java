@@ -4,42 +4,211 @@ import com.fbaron.tracker.core.repository.FileStorageRepository;
 import com.fbaron.tracker.core.repository.MusicProviderRepository;
 import com.fbaron.tracker.core.repository.TrackCommandRepository;
 import com.fbaron.tracker.core.repository.TrackQueryRepository;
+import com.fbaron.tracker.core.service.SingleFlightTrackRegistration;
 import com.fbaron.tracker.core.service.TrackService;
+import com.fbaron.tracker.data.cache.CachingTrackRepository;
+import com.fbaron.tracker.data.jpa.GroupCommitTrackRepository;
+import com.fbaron.tracker.data.jpa.ReplicaFallbackTrackQueryRepository;
+import com.fbaron.tracker.data.jpa.TrackJpaAdapter;
+import com.fbaron.tracker.data.jpa.mapper.TrackJpaMapper;
+import com.fbaron.tracker.data.metrics.TimedPort;
+import com.fbaron.tracker.data.provider.AdaptiveRateLimiter;
+import com.fbaron.tracker.data.provider.CircuitBreakingMusicProviderRepository;
+import com.fbaron.tracker.data.provider.NegativeCachingMusicProviderRepository;
+import com.fbaron.tracker.data.provider.ProviderCircuitHealthIndicator;
+import com.fbaron.tracker.data.provider.RateLimitedMusicProviderRepository;
+import com.fbaron.tracker.data.spotify.SpotifyAdapter;
+import com.fbaron.tracker.data.spotify.SpotifyTokenProvider;
+import com.fbaron.tracker.data.storage.FileStorageAdapter;
+import com.fbaron.tracker.data.storage.OffHeapCoverCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestClient;
 
+import java.time.Clock;
+import java.time.Duration;
+
 /**
- * Configuration for core service and Spotify REST client beans.
+ * Configuration for core service, port decorators (caches) and the Spotify token bean.
+ * The provider HTTP clients live in {@link ProviderHttpClientConfig}.
  */
 @Configuration
 public class TrackBeanConfig {
 
     /**
-     * Builds the RestClient used for Spotify API calls (base URL from config).
+     * Spotify client-credentials token, renewed in the background {@code spotify.token.refresh-ahead} before it
+     * expires and fetched at startup unless {@code spotify.token.prefetch} is false.
+     */
+    @Bean
+    public SpotifyTokenProvider spotifyTokenProvider(RestClient spotifyRestClient,
+                                                     @Value("${spotify.auth-url}") String authUrl,
+                                                     @Value("${spotify.client-id}") String clientId,
+                                                     @Value("${spotify.client-secret}") String clientSecret,
+                                                     @Value("${spotify.token.refresh-ahead:5m}") Duration refreshAhead,
+                                                     @Value("${spotify.token.prefetch:true}") boolean prefetch) {
+        return new SpotifyTokenProvider(spotifyRestClient, authUrl, clientId, clientSecret,
+                refreshAhead, prefetch, Clock.systemUTC());
+    }
+
+    /**
+     * Read-through track cache in front of the JPA adapter (reads through the replica fallback when a replica is
+     * configured, writes through the group commit when enabled); becomes the query and command port when
+     * {@code app.cache.tracks.enabled} is true (default). Bounded by {@code app.cache.tracks.max-weight}.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "app.cache.tracks", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CachingTrackRepository cachingTrackRepository(TrackJpaAdapter trackJpaAdapter,
+                                                         ObjectProvider<ReplicaFallbackTrackQueryRepository> replica,
+                                                         ObjectProvider<GroupCommitTrackRepository> groupCommit,
+                                                         @Value("${app.cache.tracks.max-weight:16MB}") DataSize maxWeight,
+                                                         @Value("${app.cache.tracks.negative-ttl:30s}") Duration negativeTtl) {
+        TrackQueryRepository queries = replica.getIfAvailable();
+        TrackCommandRepository commands = groupCommit.getIfAvailable();
+        return new CachingTrackRepository(queries != null ? queries : trackJpaAdapter,
+                commands != null ? commands : trackJpaAdapter, maxWeight.toBytes(), negativeTtl);
+    }
+
+    /**
+     * Group commit of track inserts ({@code app.persistence.group-commit.*}): concurrent registrations share one
+     * JDBC batch and one transaction. Enabled unless {@code app.persistence.group-commit.enabled} is false. Sits
+     * under the track cache, or directly under {@link TrackService} without it.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.persistence.group-commit", name = "enabled", havingValue = "true",
+            matchIfMissing = true)
+    public GroupCommitTrackRepository groupCommitTrackRepository(
+            TrackJpaAdapter trackJpaAdapter,
+            TrackJpaMapper trackJpaMapper,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.persistence.group-commit.max-batch-size:100}") int maxBatchSize,
+            @Value("${app.persistence.group-commit.max-delay:2ms}") Duration maxDelay,
+            @Value("${app.persistence.group-commit.commit-timeout:10s}") Duration commitTimeout) {
+        return new GroupCommitTrackRepository(trackJpaAdapter, trackJpaMapper, jdbcTemplate,
+                new TransactionTemplate(transactionManager), maxBatchSize, maxDelay, commitTimeout);
+    }
+
+    /**
+     * Token bucket and AIMD concurrency limit shared by all provider calls ({@code app.provider.rate-limit.*});
+     * the Spotify RestClient reports 429s to it.
+     */
+    @Bean
+    public AdaptiveRateLimiter providerRateLimiter(
+            @Value("${app.provider.rate-limit.permits-per-second:10}") double permitsPerSecond,
+            @Value("${app.provider.rate-limit.burst:20}") int burst,
+            @Value("${app.provider.rate-limit.initial-concurrency:10}") int initialConcurrency,
+            @Value("${app.provider.rate-limit.min-concurrency:1}") int minConcurrency,
+            @Value("${app.provider.rate-limit.max-concurrency:50}") int maxConcurrency,
+            @Value("${app.provider.rate-limit.max-queue-wait:5s}") Duration maxQueueWait) {
+        return new AdaptiveRateLimiter(permitsPerSecond, burst, initialConcurrency, minConcurrency,
+                maxConcurrency, maxQueueWait);
+    }
+
+    /**
+     * Circuit breaker around the Spotify adapter ({@code app.provider.circuit-breaker.*}): while open, provider
+     * calls fail with 503 without reaching Spotify. It sits inside the rate limiter, so it only measures calls
+     * that were actually sent: time queued for a permit and the limiter's own rejections do not count.
      */
     @Bean
-    public RestClient spotifyRestClient(RestClient.Builder builder,
-                                        @Value("${spotify.api-base-url}") String apiBaseUrl) {
-        return builder
-                .baseUrl(apiBaseUrl)
-                .build();
+    public CircuitBreakingMusicProviderRepository providerCircuitBreaker(
+            SpotifyAdapter spotifyAdapter,
+            @Value("${app.provider.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${app.provider.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${app.provider.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${app.provider.circuit-breaker.slow-call-threshold:3s}") Duration slowCallThreshold,
+            @Value("${app.provider.circuit-breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+            @Value("${app.provider.circuit-breaker.open-duration:30s}") Duration openDuration,
+            @Value("${app.provider.circuit-breaker.half-open-probes:3}") int halfOpenProbes) {
+        return new CircuitBreakingMusicProviderRepository(spotifyAdapter,
+                windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, slowCallRateThreshold,
+                openDuration, halfOpenProbes);
     }
 
     /**
-     * Builds the main track service with all required repository ports.
+     * Readiness contributor {@code providerCircuit}: DEGRADED (still HTTP 200) while the circuit is not closed.
      */
     @Bean
-    public TrackService trackService(TrackQueryRepository trackQueryRepository,
+    public ProviderCircuitHealthIndicator providerCircuitHealthIndicator(
+            CircuitBreakingMusicProviderRepository providerCircuitBreaker) {
+        return new ProviderCircuitHealthIndicator(providerCircuitBreaker);
+    }
+
+    /**
+     * Music provider port used by the core: Spotify behind the circuit breaker and the rate limiter, behind a TTL
+     * cache of ISRCs it does not know (so known misses neither take a rate-limit slot nor count as calls).
+     */
+    @Bean
+    @Primary
+    public NegativeCachingMusicProviderRepository musicProviderRepository(
+            CircuitBreakingMusicProviderRepository providerCircuitBreaker,
+            AdaptiveRateLimiter providerRateLimiter,
+            @Value("${app.cache.provider-misses.ttl:10m}") Duration ttl) {
+        return new NegativeCachingMusicProviderRepository(
+                new RateLimitedMusicProviderRepository(providerCircuitBreaker, providerRateLimiter), ttl);
+    }
+
+    /**
+     * Off-heap cache of hot cover images in front of the file storage; becomes the storage port when
+     * {@code app.cache.covers.enabled} is true (default). Bounded by {@code app.cache.covers.max-size}.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "app.cache.covers", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public OffHeapCoverCache offHeapCoverCache(FileStorageAdapter fileStorageAdapter,
+                                               @Value("${app.cache.covers.max-size:64MB}") DataSize maxSize,
+                                               @Value("${app.cache.covers.max-entry-size:2MB}") DataSize maxEntrySize) {
+        return new OffHeapCoverCache(fileStorageAdapter, maxSize.toBytes(), maxEntrySize.toBytes());
+    }
+
+    /**
+     * Builds the main track service with all required repository ports, each call timed as {@code port.calls}
+     * and as a stage of the request's {@code Server-Timing} header (see {@link TimedPort}). The track ports are
+     * the cache when enabled, else the replica fallback (queries) and group commit (inserts) when configured,
+     * else the JPA adapter.
+     */
+    @Bean
+    public TrackService trackService(TrackJpaAdapter trackJpaAdapter,
+                                     ObjectProvider<CachingTrackRepository> trackCache,
+                                     ObjectProvider<ReplicaFallbackTrackQueryRepository> replica,
+                                     ObjectProvider<GroupCommitTrackRepository> groupCommit,
                                      MusicProviderRepository musicProviderRepository,
                                      FileStorageRepository fileStorageRepository,
-                                     TrackCommandRepository trackCommandRepository) {
+                                     MeterRegistry meterRegistry) {
+        CachingTrackRepository cache = trackCache.getIfAvailable();
+        TrackQueryRepository queries = cache != null ? cache : replica.getIfAvailable();
+        TrackCommandRepository commands = cache != null ? cache : groupCommit.getIfAvailable();
+        TrackQueryRepository trackQueryRepository = queries != null ? queries : trackJpaAdapter;
+        TrackCommandRepository trackCommandRepository = commands != null ? commands : trackJpaAdapter;
         return new TrackService(
-                trackQueryRepository,
-                musicProviderRepository,
-                fileStorageRepository,
-                trackCommandRepository);
+                TimedPort.wrap(TrackQueryRepository.class, trackQueryRepository, meterRegistry, method -> "db"),
+                TimedPort.wrap(MusicProviderRepository.class, musicProviderRepository, meterRegistry,
+                        method -> switch (method) {
+                            case "fetchMetadata" -> "provider-search";
+                            case "downloadCoverImage" -> "cover-dl";
+                            default -> "provider-album";
+                        }),
+                TimedPort.wrap(FileStorageRepository.class, fileStorageRepository, meterRegistry, method -> "disk"),
+                TimedPort.wrap(TrackCommandRepository.class, trackCommandRepository, meterRegistry,
+                        method -> "db-insert"));
+    }
+
+    /**
+     * Registration entry point used by the web layer: coalesces concurrent registrations of the same ISRC.
+     */
+    @Bean
+    @Primary
+    public SingleFlightTrackRegistration singleFlightTrackRegistration(TrackService trackService) {
+        return new SingleFlightTrackRegistration(trackService);
     }
 
 }
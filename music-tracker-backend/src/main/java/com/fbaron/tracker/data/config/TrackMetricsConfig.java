@@ -0,0 +1,74 @@
+package com.fbaron.tracker.data.config;
+
+import com.fbaron.tracker.core.service.SingleFlightTrackRegistration;
+import com.fbaron.tracker.core.service.TrackService;
+import com.fbaron.tracker.data.metrics.FlightRecordingEndpoint;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Binds the plain counters kept by the (framework-free) core services to Micrometer, and exposes on-demand
+ * flight recordings of the core's JFR events.
+ */
+@Configuration
+public class TrackMetricsConfig {
+
+    /**
+     * Led vs. coalesced registrations of the single-flight layer, plus the number in flight.
+     */
+    @Bean
+    public MeterBinder registrationFlightMetrics(SingleFlightTrackRegistration registration) {
+        return registry -> {
+            FunctionCounter.builder("tracks.registrations", registration, SingleFlightTrackRegistration::getLedCount)
+                    .description("Track registrations by single-flight role")
+                    .tag("flight", "led")
+                    .register(registry);
+            FunctionCounter.builder("tracks.registrations", registration, SingleFlightTrackRegistration::getCoalescedCount)
+                    .description("Track registrations by single-flight role")
+                    .tag("flight", "coalesced")
+                    .register(registry);
+            Gauge.builder("tracks.registrations.in.flight", registration, SingleFlightTrackRegistration::getInFlightCount)
+                    .description("ISRCs currently being registered")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Album cover deduplication: reuses and the bytes they saved (each reused byte is neither
+     * downloaded from the provider nor written to disk again).
+     */
+    @Bean
+    public MeterBinder coverDeduplicationMetrics(TrackService trackService) {
+        return registry -> {
+            FunctionCounter.builder("tracks.covers.reused", trackService, TrackService::getCoversReused)
+                    .description("Registrations that reused the stored album cover")
+                    .register(registry);
+            FunctionCounter.builder("tracks.covers.reused.bytes", trackService, TrackService::getCoverBytesReused)
+                    .description("Cover bytes not downloaded and not written thanks to album-keyed covers")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * {@code /actuator/jfr}: time-bounded recordings with the JDK settings named by {@code app.jfr.settings}
+     * ({@code default} or {@code profile}) plus the app events.
+     */
+    @Bean
+    public FlightRecordingEndpoint flightRecordingEndpoint(
+            @Value("${app.jfr.settings:default}") String settings,
+            @Value("${app.jfr.default-duration:60s}") Duration defaultDuration,
+            @Value("${app.jfr.max-duration:10m}") Duration maxDuration) throws IOException, ParseException {
+        return new FlightRecordingEndpoint(jdk.jfr.Configuration.getConfiguration(settings), defaultDuration,
+                maxDuration);
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.fbaron.tracker.data.jpa;
+
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.TrackCommandRepository;
+import com.fbaron.tracker.data.jpa.entity.TrackJpaEntity;
+import com.fbaron.tracker.data.jpa.mapper.TrackJpaMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-combining stage for track inserts. Concurrent {@link #insertIfAbsent} calls are written by one flusher
+ * thread as a single JDBC batch in one transaction, so a burst of registrations costs one commit (one WAL flush on
+ * PostgreSQL) instead of one per track. A batch closes {@code maxDelay} after its first row or at
+ * {@code maxBatchSize} rows, whichever comes first; while it commits the next one fills up. Each caller blocks until
+ * its batch commits and gets its own row's outcome, or a {@link QueryTimeoutException} after {@code commitTimeout}
+ * (the row may still commit later). If a batch fails, its rows are retried one transaction each, so a bad row only
+ * fails its own caller. Relies on per-statement update counts (the PostgreSQL driver's default; do not enable
+ * {@code reWriteBatchedInserts}). {@link #save} is not batched.
+ */
+@Slf4j
+public class GroupCommitTrackRepository implements TrackCommandRepository, MeterBinder, AutoCloseable {
+
+    static final String INSERT_SQL = """
+            insert into tracks (isr_code, name, artist_name, album_name, album_id, is_explicit, playback_seconds,
+                                cover_path)
+            values (?, ?, ?, ?, ?, ?, ?, ?)
+            on conflict do nothing""";
+
+    private final TrackCommandRepository delegate;
+    private final TrackJpaMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Duration commitTimeout;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public GroupCommitTrackRepository(TrackCommandRepository delegate,
+                                      TrackJpaMapper mapper,
+                                      JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      int maxBatchSize,
+                                      Duration maxDelay,
+                                      Duration commitTimeout) {
+        this.delegate = delegate;
+        this.mapper = mapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.commitTimeout = commitTimeout;
+        this.flusher = Thread.ofPlatform().name("track-group-commit").daemon().start(this::flushLoop);
+    }
+
+    @Override
+    public Track save(Track track) {
+        return delegate.save(track);
+    }
+
+    @Override
+    public boolean insertIfAbsent(Track track) {
+        if (!running) {
+            throw shutDown();
+        }
+        PendingInsert pending = new PendingInsert(mapper.toEntity(track), new CompletableFuture<>());
+        queue.add(pending);
+        // close() may have drained the queue between the check above and the add: then nobody else will take it
+        if (!running && queue.remove(pending)) {
+            throw shutDown();
+        }
+        try {
+            return pending.inserted().get(commitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new TransientDataAccessResourceException("Track insert failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Track insert did not commit within " + commitTimeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted while waiting for the track insert", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tracks.inserts.rows", rows, LongAdder::sum)
+                .description("Track rows written by the group commit")
+                .register(registry);
+        FunctionCounter.builder("tracks.inserts.commits", commits, LongAdder::sum)
+                .description("Transactions committed by the group commit (rows / commits = mean batch size)")
+                .register(registry);
+        Gauge.builder("tracks.inserts.queued", queue, BlockingQueue::size)
+                .description("Inserts waiting for the next batch")
+                .register(registry);
+    }
+
+    /** Rows written so far. */
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    /** Transactions committed so far. */
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    /** Stops accepting inserts, writes what is queued and stops the flusher thread. */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        flusher.join();
+        PendingInsert late;
+        while ((late = queue.poll()) != null) {
+            late.inserted().completeExceptionally(shutDown());
+        }
+    }
+
+    private static IllegalStateException shutDown() {
+        return new IllegalStateException("Track group commit is shut down");
+    }
+
+    private void flushLoop() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingInsert first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingInsert next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.inserted().completeExceptionally(shutDown()));
+                return;
+            } catch (Throwable e) {
+                // flush completes every future itself; this only guards the loop and whatever it left pending
+                log.error("Track group commit failed unexpectedly", e);
+                batch.forEach(pending -> pending.inserted().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL, setter(batch)));
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} track inserts failed, retrying them one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::flushAlone);
+            return;
+        }
+        commits.increment();
+        rows.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).inserted().complete(counts[i] == 1);
+        }
+    }
+
+    private void flushAlone(PendingInsert pending) {
+        try {
+            int[] counts = transactionTemplate.execute(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, setter(List.of(pending))));
+            commits.increment();
+            rows.increment();
+            pending.inserted().complete(counts[0] == 1);
+        } catch (RuntimeException e) {
+            pending.inserted().completeExceptionally(e);
+        }
+    }
+
+    private static BatchPreparedStatementSetter setter(List<PendingInsert> batch) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                TrackJpaEntity track = batch.get(i).track();
+                statement.setString(1, track.getIsrCode());
+                statement.setString(2, track.getName());
+                statement.setString(3, track.getArtistName());
+                statement.setString(4, track.getAlbumName());
+                statement.setString(5, track.getAlbumId());
+                statement.setBoolean(6, track.isExplicit());
+                statement.setObject(7, track.getPlaybackSeconds());
+                statement.setString(8, track.getCoverPath());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        };
+    }
+
+    private record PendingInsert(TrackJpaEntity track, CompletableFuture<Boolean> inserted) {
+    }
+
+}
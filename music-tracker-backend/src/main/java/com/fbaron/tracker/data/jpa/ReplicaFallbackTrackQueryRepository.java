@@ -0,0 +1,78 @@
+package com.fbaron.tracker.data.jpa;
+
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.TrackQueryRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes on top of replica reads. The delegate's reads run in read-only transactions and are routed to
+ * the replica; a miss while the {@link ReplicaLagWindow} is open (this instance committed a write within the
+ * replica lag) is read again on the primary, so a track is found right after it was registered. Misses outside the
+ * window, and all hits, stay on the replica.
+ */
+@Slf4j
+public class ReplicaFallbackTrackQueryRepository implements TrackQueryRepository, MeterBinder {
+
+    private final TrackQueryRepository delegate;
+    private final ReplicaLagWindow lagWindow;
+    private final TransactionTemplate primaryRead;
+    private final LongAdder fallbackHits = new LongAdder();
+    private final LongAdder fallbackMisses = new LongAdder();
+
+    public ReplicaFallbackTrackQueryRepository(TrackQueryRepository delegate,
+                                               ReplicaLagWindow lagWindow,
+                                               PlatformTransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.lagWindow = lagWindow;
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.primaryRead.setName(ReplicaLagWindow.PRIMARY_READ);
+    }
+
+    @Override
+    public Optional<Track> findByIsrCode(String isrCode) {
+        return readYourWrites(() -> delegate.findByIsrCode(isrCode));
+    }
+
+    @Override
+    public Optional<String> findCoverPathByAlbumId(String albumId) {
+        return readYourWrites(() -> delegate.findCoverPathByAlbumId(albumId));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tracks.replica.fallbacks", fallbackHits, LongAdder::sum)
+                .description("Replica misses read again on the primary within the replica lag window")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("tracks.replica.fallbacks", fallbackMisses, LongAdder::sum)
+                .description("Replica misses read again on the primary within the replica lag window")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    private <T> Optional<T> readYourWrites(Supplier<Optional<T>> read) {
+        Optional<T> fromReplica = read.get();
+        if (fromReplica.isPresent() || !lagWindow.isOpen()) {
+            return fromReplica;
+        }
+        // a read-write transaction is routed to the primary; the delegate's read-only one joins it
+        Optional<T> fromPrimary = primaryRead.execute(status -> read.get());
+        if (fromPrimary.isPresent()) {
+            fallbackHits.increment();
+            log.debug("Replica miss served by the primary within the lag window");
+        } else {
+            fallbackMisses.increment();
+        }
+        return fromPrimary;
+    }
+
+}
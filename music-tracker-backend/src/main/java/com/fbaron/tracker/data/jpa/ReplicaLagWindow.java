@@ -0,0 +1,39 @@
+package com.fbaron.tracker.data.jpa;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Tracks when this instance last committed a write to the primary. For {@code lag} afterwards the replica may not
+ * show it yet, so {@link ReplicaFallbackTrackQueryRepository} confirms replica misses on the primary. Registered
+ * with the transaction manager as a listener; read-only transactions and the fallback reads themselves
+ * ({@link #PRIMARY_READ}) do not open the window.
+ */
+public class ReplicaLagWindow implements TransactionExecutionListener {
+
+    /** Name of the transactions that read from the primary. */
+    public static final String PRIMARY_READ = "tracks.primary-read";
+
+    private final long lagNanos;
+    private volatile long openUntilNanos = System.nanoTime();
+
+    public ReplicaLagWindow(Duration lag) {
+        this.lagNanos = lag.toNanos();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()
+                && !PRIMARY_READ.equals(transaction.getTransactionName())) {
+            openUntilNanos = System.nanoTime() + lagNanos;
+        }
+    }
+
+    /** Whether a write committed recently enough that the replica may still be missing it. */
+    public boolean isOpen() {
+        return System.nanoTime() - openUntilNanos < 0;
+    }
+
+}
@@ -27,10 +27,15 @@ public class TrackJpaAdapter implements TrackQueryRepository, TrackCommandReposi
     @Override
     public Optional<Track> findByIsrCode(String isrCode) {
         log.info("findByIsrCode isrCode={}", isrCode);
-        return trackJpaRepository.findById(isrCode)
+        return trackJpaRepository.findRowByIsrCode(isrCode)
                 .map(trackJpaMapper::toModel);
     }
 
+    @Override
+    public Optional<String> findCoverPathByAlbumId(String albumId) {
+        return trackJpaRepository.findCoverPathsByAlbumId(albumId).stream().findFirst();
+    }
+
     @Override
     public Track save(Track track) {
         log.info("Saving Tack isrCode={}", track.getIsrCode());
@@ -40,4 +45,18 @@ public class TrackJpaAdapter implements TrackQueryRepository, TrackCommandReposi
         return trackJpaMapper.toModel(trackJpaEntity);
     }
 
+    @Override
+    public boolean insertIfAbsent(Track track) {
+        TrackJpaEntity entity = trackJpaMapper.toEntity(track);
+        boolean inserted = trackJpaRepository.insertIfAbsent(entity.getIsrCode(), entity.getName(),
+                entity.getArtistName(), entity.getAlbumName(), entity.getAlbumId(), entity.isExplicit(),
+                entity.getPlaybackSeconds(), entity.getCoverPath()) == 1;
+        if (inserted) {
+            log.info("Inserted Track isrCode={}", entity.getIsrCode());
+        } else {
+            log.info("Track already stored, nothing inserted: isrCode={}", entity.getIsrCode());
+        }
+        return inserted;
+    }
+
 }
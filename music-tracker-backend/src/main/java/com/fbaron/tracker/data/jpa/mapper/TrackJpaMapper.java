@@ -2,11 +2,13 @@ package com.fbaron.tracker.data.jpa.mapper;
 
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.data.jpa.entity.TrackJpaEntity;
+import com.fbaron.tracker.data.jpa.projection.TrackRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 /**
- * Maps domain {@link Track} to/from {@link TrackJpaEntity} (field name alignment for isExplicit).
+ * Maps domain {@link Track} to/from {@link TrackJpaEntity}, and from the read-only {@link TrackRow} projection
+ * (field name alignment for isExplicit).
  */
 @Mapper(componentModel = "spring")
 public interface TrackJpaMapper {
@@ -15,6 +17,11 @@ public interface TrackJpaMapper {
     TrackJpaEntity toEntity(Track track);
 
     @Mapping(target = "isExplicit", source = "explicit")
+    @Mapping(target = "coverUrl", ignore = true)
     Track toModel(TrackJpaEntity source);
 
+    @Mapping(target = "isExplicit", source = "explicit")
+    @Mapping(target = "coverUrl", ignore = true)
+    Track toModel(TrackRow source);
+
 }
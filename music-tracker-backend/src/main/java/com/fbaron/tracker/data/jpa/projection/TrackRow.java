@@ -0,0 +1,15 @@
+package com.fbaron.tracker.data.jpa.projection;
+
+/**
+ * Read-only projection of a tracks row, filled by a JPQL constructor expression: no managed entity, no
+ * persistence-context entry and no dirty-checking snapshot.
+ */
+public record TrackRow(String isrCode,
+                       String name,
+                       String artistName,
+                       String albumName,
+                       String albumId,
+                       boolean explicit,
+                       Long playbackSeconds,
+                       String coverPath) {
+}
@@ -1,10 +1,57 @@
 package com.fbaron.tracker.data.jpa.repository;
 
 import com.fbaron.tracker.data.jpa.entity.TrackJpaEntity;
+import com.fbaron.tracker.data.jpa.projection.TrackRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 /** Spring Data JPA repository for tracks (ID = ISRC). */
 @Repository
 public interface TrackJpaRepository extends JpaRepository<TrackJpaEntity, String> {
+
+    /**
+     * Reads a track straight into a {@link TrackRow}, for lookups that only hand the data on: unlike
+     * {@code findById}, Hibernate keeps no entity or snapshot for it, and the read-only transaction never flushes.
+     */
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.fbaron.tracker.data.jpa.projection.TrackRow(t.isrCode, t.name, t.artistName, t.albumName,
+                   t.albumId, t.isExplicit, t.playbackSeconds, t.coverPath)
+            from TrackJpaEntity t where t.isrCode = :isrCode""")
+    Optional<TrackRow> findRowByIsrCode(@Param("isrCode") String isrCode);
+
+    /** Cover paths stored for an album (served by {@code idx_tracks_album_id}); a replica read when one is set up. */
+    @Transactional(readOnly = true)
+    @Query("select distinct t.coverPath from TrackJpaEntity t where t.albumId = :albumId and t.coverPath is not null")
+    List<String> findCoverPathsByAlbumId(@Param("albumId") String albumId);
+
+    /**
+     * Inserts a track in one round trip, without the SELECT that {@code save} (a merge, as the ID is assigned)
+     * issues first. A row with the same ISRC, e.g. registered concurrently by another instance, makes it a no-op.
+     *
+     * @return rows inserted: 1, or 0 when the ISRC was already stored
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into tracks (isr_code, name, artist_name, album_name, album_id, is_explicit, playback_seconds,
+                                cover_path)
+            values (:isrCode, :name, :artistName, :albumName, :albumId, :isExplicit, :playbackSeconds, :coverPath)
+            on conflict do nothing""", nativeQuery = true)
+    int insertIfAbsent(@Param("isrCode") String isrCode,
+                       @Param("name") String name,
+                       @Param("artistName") String artistName,
+                       @Param("albumName") String albumName,
+                       @Param("albumId") String albumId,
+                       @Param("isExplicit") boolean isExplicit,
+                       @Param("playbackSeconds") Long playbackSeconds,
+                       @Param("coverPath") String coverPath);
+
 }
@@ -0,0 +1,110 @@
+package com.fbaron.tracker.data.metrics;
+
+import com.fbaron.tracker.core.metrics.CacheAccessEvent;
+import com.fbaron.tracker.core.metrics.CoverIoEvent;
+import com.fbaron.tracker.core.metrics.ProviderCallEvent;
+import com.fbaron.tracker.core.metrics.RegistrationEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * On-demand flight recording at {@code /actuator/jfr}: {@code POST} starts a time-bounded recording (JDK settings
+ * plus the app's registration, provider, cover I/O and cache events at their thresholds), {@code GET} returns the
+ * last recording as a {@code .jfr} file, also while it is still running. One recording at a time; starting a new
+ * one discards the previous. Authenticated like every actuator endpoint but health.
+ */
+@Slf4j
+@WebEndpoint(id = "jfr")
+public class FlightRecordingEndpoint {
+
+    static final String RECORDING_NAME = "tracker-on-demand";
+
+    private static final List<Class<? extends Event>> APP_EVENTS = List.of(RegistrationEvent.class,
+            ProviderCallEvent.class, CoverIoEvent.class, CacheAccessEvent.class);
+
+    private final Configuration settings;
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+
+    private Recording recording;
+
+    public FlightRecordingEndpoint(Configuration settings, Duration defaultDuration, Duration maxDuration) {
+        this.settings = settings;
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+    }
+
+    /** Starts a recording for {@code duration} (default when absent, capped at the maximum); 429 while one runs. */
+    @WriteOperation
+    public synchronized WebEndpointResponse<RecordingDescriptor> start(@Nullable Duration duration) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(describe(recording), WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+        close();
+        Duration length = duration == null ? defaultDuration
+                : duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+        Recording started = new Recording(settings);
+        started.setName(RECORDING_NAME);
+        APP_EVENTS.forEach(started::enable);
+        started.setToDisk(true);
+        started.setDuration(length);
+        started.start();
+        recording = started;
+        log.info("Started flight recording: duration={}", length);
+        return new WebEndpointResponse<>(describe(started), WebEndpointResponse.STATUS_OK);
+    }
+
+    /** Streams the recorded data so far; 404 when nothing was started. */
+    @ReadOperation
+    public synchronized WebEndpointResponse<Resource> dump() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            recording.dump(file);
+            // the dump is deleted once the response has been streamed
+            return new WebEndpointResponse<>(new InputStreamResource(
+                    Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE)), WebEndpointResponse.STATUS_OK);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not dump flight recording", e);
+        }
+    }
+
+    /** Discards the current recording and its data; called on shutdown. */
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static RecordingDescriptor describe(Recording recording) {
+        Instant start = recording.getStartTime();
+        return new RecordingDescriptor(recording.getName(), recording.getState().name(), start,
+                start.plus(recording.getDuration()));
+    }
+
+    public record RecordingDescriptor(String name, String state, Instant startTime, Instant endTime) {
+    }
+
+}
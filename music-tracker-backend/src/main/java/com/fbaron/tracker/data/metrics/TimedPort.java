@@ -0,0 +1,65 @@
+package com.fbaron.tracker.data.metrics;
+
+import com.fbaron.tracker.core.metrics.StageTimings;
+import io.micrometer.core.instrument.Meter.MeterProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Times every call through a core port: wraps the port's implementation in a proxy that records
+ * {@value #METER} tagged {@code port} (interface name), {@code method}, {@code outcome} ({@code success} or
+ * {@code error}) and {@code exception} (simple class name, {@code none} on success). Exceptions pass through
+ * unchanged. A call that hands a callback to the port (e.g. the cover download writing to storage) includes the
+ * callback's time. Calls also count towards the request's {@link StageTimings} under the stage named for the method.
+ * Each port shares one meter provider, so a call looks up its existing timer instead of building a new one.
+ */
+public final class TimedPort {
+
+    public static final String METER = "port.calls";
+
+    private TimedPort() {
+    }
+
+    /**
+     * @param stage {@link StageTimings} stage of each method, by method name (e.g. {@code provider-search})
+     */
+    public static <T> T wrap(Class<T> port, T target, MeterRegistry registry, Function<String, String> stage) {
+        MeterProvider<Timer> timers = Timer.builder(METER)
+                .description("Calls through the core ports")
+                .tag("port", port.getSimpleName())
+                .withRegistry(registry);
+        return port.cast(Proxy.newProxyInstance(port.getClassLoader(), new Class<?>[]{port},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(target, args);
+                    }
+                    long start = StageTimings.enter();
+                    String exception = "none";
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        exception = e.getCause().getClass().getSimpleName();
+                        throw e.getCause();
+                    } finally {
+                        StageTimings.exit(stage.apply(method.getName()), start);
+                        record(timers, method, exception, start);
+                    }
+                }));
+    }
+
+    private static void record(MeterProvider<Timer> timers, Method method, String exception, long start) {
+        timers.withTags(Tags.of(
+                        "method", method.getName(),
+                        "outcome", "none".equals(exception) ? "success" : "error",
+                        "exception", exception))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-side limits for provider calls: a token bucket caps the request rate and an AIMD concurrency limit
+ * adapts to the provider's throttling (each success adds {@code 1/limit}, a throttle halves it, at most once
+ * per second). A throttle also pauses the bucket for the {@code Retry-After} the provider asked for.
+ * Callers over either limit wait in line up to {@code maxQueueWait}; only then are they rejected with
+ * {@link ProviderUnavailableException}. Uses a {@link ReentrantLock}, not a monitor, so waiting virtual
+ * threads do not pin their carrier.
+ */
+@Slf4j
+public class AdaptiveRateLimiter implements MeterBinder {
+
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Duration DEFAULT_PAUSE = Duration.ofSeconds(1);
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxQueueWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveRateLimiter(double permitsPerSecond, int burst, int initialLimit, int minLimit, int maxLimit,
+                               Duration maxQueueWait) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.tokens = burst;
+        this.limit = initialLimit;
+        long now = System.nanoTime();
+        this.refilledAt = now;
+        this.pausedUntil = now;
+        this.lastDecrease = now - DECREASE_COOLDOWN_NANOS;
+    }
+
+    /**
+     * Waits for a concurrency slot and a rate token, in that order, then returns the slot to release.
+     *
+     * @throws ProviderUnavailableException if both cannot be had within the queue wait
+     */
+    public Permit acquire() {
+        long start = System.nanoTime();
+        long deadline = start + maxQueueWaitNanos;
+        long tokenWait;
+        queued.incrementAndGet();
+        try {
+            lock.lock();
+            try {
+                while (inFlight >= (int) limit) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw reject("concurrency limit");
+                    }
+                    slotFreed.awaitNanos(remaining);
+                }
+                tokenWait = reserveToken(System.nanoTime(), deadline);
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("interrupted");
+            } finally {
+                lock.unlock();
+            }
+            if (tokenWait > 0) {
+                sleep(tokenWait);
+            }
+        } finally {
+            queued.decrementAndGet();
+        }
+        return this::release;
+    }
+
+    /** Additive increase after a call the provider accepted. */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+                slotFreed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Multiplicative decrease and a pause of the bucket after the provider answered 429. */
+    public void onThrottled(Duration retryAfter) {
+        throttled.increment();
+        Duration pause = retryAfter != null ? retryAfter : DEFAULT_PAUSE;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            pausedUntil = Math.max(pausedUntil, now + pause.toNanos());
+            if (now - lastDecrease >= DECREASE_COOLDOWN_NANOS) {
+                limit = Math.max(minLimit, limit / 2);
+                lastDecrease = now;
+                log.warn("Music provider throttled us: concurrency limit now {}, paused for {}", (int) limit, pause);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Current concurrency limit (whole permits). */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Callers waiting for a slot or a token. */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /** Number of 429 responses seen. */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("provider.concurrency.limit", this, AdaptiveRateLimiter::getLimit)
+                .description("Current AIMD concurrency limit for music provider calls")
+                .register(registry);
+        Gauge.builder("provider.concurrency.in.flight", this, limiter -> limiter.inFlight)
+                .description("Music provider calls in progress")
+                .register(registry);
+        Gauge.builder("provider.queue.depth", this, AdaptiveRateLimiter::getQueueDepth)
+                .description("Music provider calls waiting for a concurrency slot or rate token")
+                .register(registry);
+        FunctionCounter.builder("provider.throttled", throttled, LongAdder::sum)
+                .description("429 responses received from the music provider")
+                .register(registry);
+        FunctionCounter.builder("provider.rejected", rejected, LongAdder::sum)
+                .description("Music provider calls rejected after waiting the maximum queue time")
+                .register(registry);
+    }
+
+    /**
+     * Takes one token, letting the balance go negative so later callers queue behind this reservation.
+     * Returns how long to wait for it; nothing is reserved if that would pass the deadline.
+     */
+    private long reserveToken(long now, long deadline) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        long availableAt = Math.max(pausedUntil, now + (tokens >= 1 ? 0 : (long) ((1 - tokens) / permitsPerNano)));
+        if (availableAt > deadline) {
+            throw reject("rate limit");
+        }
+        tokens -= 1;
+        return availableAt - now;
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ProviderUnavailableException reject(String reason) {
+        rejected.increment();
+        long retryAfterNanos = Math.max(TimeUnit.SECONDS.toNanos(1), pausedUntil - System.nanoTime());
+        log.warn("Music provider call rejected after queueing: reason={}", reason);
+        return new ProviderUnavailableException("The music provider is busy. Please try again later.",
+                Duration.ofNanos(retryAfterNanos));
+    }
+
+    private void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release();
+            throw reject("interrupted");
+        }
+    }
+
+    /** A held concurrency slot; closing it lets the next queued caller in. */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+}
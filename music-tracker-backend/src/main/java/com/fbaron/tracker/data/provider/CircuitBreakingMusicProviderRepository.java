@@ -0,0 +1,235 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.ImageNotFoundException;
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
+import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker on the provider port. Outcomes of the last {@code windowSize} calls are kept; once at least
+ * {@code minimumCalls} are recorded and the failure or slow-call rate reaches its threshold, the circuit opens
+ * and every call fails at once with {@link ProviderUnavailableException} (no delegate call, no stack trace)
+ * for {@code openDuration}. Then up to {@code halfOpenProbes} calls go through: all succeeding closes the
+ * circuit, any failing opens it again. Not-found answers are successful calls, and so are 429s: throttling is
+ * handled by the {@link AdaptiveRateLimiter}, which sits in front of the breaker so that neither its queueing nor
+ * its rejections are measured here.
+ */
+@Slf4j
+public class CircuitBreakingMusicProviderRepository implements MusicProviderRepository, MeterBinder {
+
+    /** Circuit state, also published as the ordinal in {@code provider.circuit.state}. */
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+    private static final Duration HALF_OPEN_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final MusicProviderRepository delegate;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final byte[] window;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreakingMusicProviderRepository(MusicProviderRepository delegate, int windowSize, int minimumCalls,
+                                                  int failureRateThreshold, Duration slowCallThreshold,
+                                                  int slowCallRateThreshold, Duration openDuration,
+                                                  int halfOpenProbes) {
+        this.delegate = delegate;
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    @Override
+    public Track fetchMetadata(String isrCode) {
+        return guarded(() -> delegate.fetchMetadata(isrCode));
+    }
+
+    @Override
+    public <T> T fetchCoverImage(String albumId, Function<InputStream, T> reader) {
+        return guarded(() -> delegate.fetchCoverImage(albumId, reader));
+    }
+
+    @Override
+    public <T> T downloadCoverImage(String imageUrl, Function<InputStream, T> reader) {
+        return guarded(() -> delegate.downloadCoverImage(imageUrl, reader));
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /** Time left until the open circuit lets probes through; zero unless open. */
+    public Duration getRetryAfter() {
+        lock.lock();
+        try {
+            return state == State.OPEN
+                    ? Duration.ofNanos(Math.max(0, openNanos - (System.nanoTime() - openedAt)))
+                    : Duration.ZERO;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Failure rate over the current window, in percent. */
+    public int getFailureRate() {
+        lock.lock();
+        try {
+            return recorded == 0 ? 0 : failures * 100 / recorded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("provider.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("Music provider circuit: 0 closed, 1 half-open, 2 open")
+                .register(registry);
+        FunctionCounter.builder("provider.circuit.rejected", rejected, LongAdder::sum)
+                .description("Music provider calls failed fast by the open circuit")
+                .register(registry);
+    }
+
+    private <T> T guarded(Supplier<T> call) {
+        acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            record(false, System.nanoTime() - start);
+            return result;
+        } catch (TrackNotFoundException | ImageNotFoundException | HttpClientErrorException.TooManyRequests e) {
+            record(false, System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            record(true, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private void acquirePermission() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                long remaining = openNanos - (System.nanoTime() - openedAt);
+                if (remaining > 0) {
+                    throw rejectCall(Duration.ofNanos(remaining));
+                }
+                log.info("Music provider circuit half-open, letting {} probe calls through", halfOpenProbes);
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= halfOpenProbes) {
+                    throw rejectCall(HALF_OPEN_RETRY_AFTER);
+                }
+                probesStarted++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failed, long elapsedNanos) {
+        byte outcome = (byte) ((failed ? FAILED : 0) | (elapsedNanos >= slowCallNanos ? SLOW : 0));
+        lock.lock();
+        try {
+            switch (state) {
+                case HALF_OPEN -> {
+                    if (outcome != 0) {
+                        open("probe call failed or was slow");
+                    } else if (++probesSucceeded >= halfOpenProbes) {
+                        log.info("Music provider circuit closed after {} successful probes", probesSucceeded);
+                        state = State.CLOSED;
+                        resetWindow();
+                    }
+                }
+                case CLOSED -> {
+                    add(outcome);
+                    if (recorded >= minimumCalls) {
+                        if (failures * 100 >= failureRateThreshold * recorded) {
+                            open("failure rate " + failures * 100 / recorded + "%");
+                        } else if (slowCalls * 100 >= slowCallRateThreshold * recorded) {
+                            open("slow call rate " + slowCalls * 100 / recorded + "%");
+                        }
+                    }
+                }
+                case OPEN -> {
+                    // a call that started before the circuit opened; its outcome no longer matters
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(byte outcome) {
+        if (recorded == window.length) {
+            failures -= window[next] & FAILED;
+            slowCalls -= (window[next] & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        window[next] = outcome;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        next = (next + 1) % window.length;
+    }
+
+    private void open(String reason) {
+        log.warn("Music provider circuit opened for {} ms: {}", openNanos / 1_000_000, reason);
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private ProviderUnavailableException rejectCall(Duration retryAfter) {
+        rejected.increment();
+        return new ProviderUnavailableException(
+                "The music provider is currently unavailable. Please try again later.", retryAfter);
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Remembers ISRCs the provider does not know for a TTL, so repeated registrations of them fail with
+ * {@link TrackNotFoundException} without spending a provider search call.
+ */
+@Slf4j
+public class NegativeCachingMusicProviderRepository implements MusicProviderRepository, MeterBinder {
+
+    private static final long MAX_ENTRIES = 100_000;
+
+    private final MusicProviderRepository delegate;
+    private final Cache<String, Boolean> misses;
+    private final LongAdder hits = new LongAdder();
+
+    public NegativeCachingMusicProviderRepository(MusicProviderRepository delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Track fetchMetadata(String isrCode) {
+        if (misses.getIfPresent(isrCode) != null) {
+            hits.increment();
+            log.debug("Known provider miss, skipping search: isrCode={}", isrCode);
+            throw new TrackNotFoundException("Track not found with ISRC: " + isrCode);
+        }
+        try {
+            return delegate.fetchMetadata(isrCode);
+        } catch (TrackNotFoundException e) {
+            misses.put(isrCode, Boolean.TRUE);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> T fetchCoverImage(String albumId, Function<InputStream, T> reader) {
+        return delegate.fetchCoverImage(albumId, reader);
+    }
+
+    @Override
+    public <T> T downloadCoverImage(String imageUrl, Function<InputStream, T> reader) {
+        return delegate.downloadCoverImage(imageUrl, reader);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tracks.negative.cache.hits", hits, LongAdder::sum)
+                .description("Lookups of unknown ISRCs answered without a round trip")
+                .tag("source", "provider")
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.fbaron.tracker.data.provider;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Reports the provider circuit. An open or half-open circuit is {@code DEGRADED} rather than DOWN: the
+ * instance still serves stored tracks and covers, only registrations of new ISRCs fail fast, so it should
+ * stay in rotation (DEGRADED maps to HTTP 200).
+ */
+@RequiredArgsConstructor
+public class ProviderCircuitHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Music provider circuit is not closed; "
+            + "registrations of new tracks fail fast");
+
+    private final CircuitBreakingMusicProviderRepository circuitBreaker;
+
+    @Override
+    public Health health() {
+        CircuitBreakingMusicProviderRepository.State state = circuitBreaker.getState();
+        Health.Builder builder = state == CircuitBreakingMusicProviderRepository.State.CLOSED
+                ? Health.up()
+                : Health.status(DEGRADED);
+        builder.withDetail("state", state)
+                .withDetail("failureRate", circuitBreaker.getFailureRate() + "%");
+        if (state == CircuitBreakingMusicProviderRepository.State.OPEN) {
+            builder.withDetail("retryAfter", circuitBreaker.getRetryAfter().toString());
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs every provider call under the {@link AdaptiveRateLimiter}: callers queue for a slot instead of
+ * bursting into the provider. A 429 that survives the HTTP-level retries becomes
+ * {@link ProviderUnavailableException} carrying the provider's {@code Retry-After}.
+ */
+@RequiredArgsConstructor
+public class RateLimitedMusicProviderRepository implements MusicProviderRepository {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final MusicProviderRepository delegate;
+    private final AdaptiveRateLimiter rateLimiter;
+
+    @Override
+    public Track fetchMetadata(String isrCode) {
+        return limited(() -> delegate.fetchMetadata(isrCode));
+    }
+
+    @Override
+    public <T> T fetchCoverImage(String albumId, Function<InputStream, T> reader) {
+        return limited(() -> delegate.fetchCoverImage(albumId, reader));
+    }
+
+    @Override
+    public <T> T downloadCoverImage(String imageUrl, Function<InputStream, T> reader) {
+        return limited(() -> delegate.downloadCoverImage(imageUrl, reader));
+    }
+
+    private <T> T limited(Supplier<T> call) {
+        try (AdaptiveRateLimiter.Permit permit = rateLimiter.acquire()) {
+            T result = call.get();
+            rateLimiter.onSuccess();
+            return result;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            Duration retryAfter = e.getResponseHeaders() != null
+                    ? RetryAfterInterceptor.retryAfter(e.getResponseHeaders())
+                    : null;
+            throw new ProviderUnavailableException("The music provider is rate limiting requests. Please try again later.",
+                    retryAfter != null ? retryAfter : DEFAULT_RETRY_AFTER);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.fbaron.tracker.data.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Handles 429 Too Many Requests from the provider: reports it to the {@link AdaptiveRateLimiter} and retries
+ * idempotent GETs after the {@code Retry-After} the provider sent, or after a full-jitter exponential backoff
+ * when it sent none. Other methods, the last attempt and waits beyond {@code maxWait} return the 429 as is.
+ * Must be the last interceptor, since each retry re-executes the rest of the chain.
+ */
+@Slf4j
+public class RetryAfterInterceptor implements ClientHttpRequestInterceptor {
+
+    private final AdaptiveRateLimiter rateLimiter;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxWait;
+
+    public RetryAfterInterceptor(AdaptiveRateLimiter rateLimiter, int maxAttempts, Duration baseBackoff,
+                                 Duration maxWait) {
+        this.rateLimiter = rateLimiter;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxWait = maxWait;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                return response;
+            }
+            Duration retryAfter = retryAfter(response.getHeaders());
+            rateLimiter.onThrottled(retryAfter);
+            Duration wait = retryAfter != null ? retryAfter : backoff(attempt);
+            if (!HttpMethod.GET.equals(request.getMethod()) || attempt >= maxAttempts || wait.compareTo(maxWait) > 0) {
+                return response;
+            }
+            log.info("Provider answered 429, retrying in {} ms: attempt={}", wait.toMillis(), attempt);
+            response.close();
+            sleep(wait);
+        }
+    }
+
+    /**
+     * Parses {@code Retry-After} as delay-seconds or an HTTP date.
+     *
+     * @return the delay, or null if the header is missing or malformed
+     */
+    static Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                Duration delay = Duration.between(Instant.now(), at);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+    }
+
+    /** Full jitter: uniform in [0, base * 2^(attempt - 1)]. */
+    private Duration backoff(int attempt) {
+        long ceiling = baseBackoff.toMillis() << Math.min(attempt - 1, 20);
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private static void sleep(Duration wait) throws InterruptedIOException {
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a throttled provider call");
+        }
+    }
+
+}
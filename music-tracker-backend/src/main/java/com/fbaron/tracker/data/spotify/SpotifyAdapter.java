@@ -1,8 +1,8 @@
 package com.fbaron.tracker.data.spotify;
 
 import com.fbaron.tracker.core.exception.ImageNotFoundException;
-import com.fbaron.tracker.core.exception.ProviderAuthenticationException;
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.metrics.ProviderCallEvent;
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.core.repository.MusicProviderRepository;
 import com.fbaron.tracker.data.spotify.entity.SpotifyAlbumResponse;
@@ -10,119 +10,128 @@ import com.fbaron.tracker.data.spotify.entity.SpotifySearchResponse;
 import com.fbaron.tracker.data.spotify.mapper.SpotifyMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
 
-import java.time.Instant;
-import java.util.Map;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.function.Function;
 
 /**
- * Spotify API adapter. Do not log token, clientId, clientSecret, authUrl,
- * or any response/request containing credentials or access_token.
+ * Spotify API adapter; access tokens come from {@link SpotifyTokenProvider}. Do not log token, clientId,
+ * clientSecret, authUrl, or any response/request containing credentials or access_token.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SpotifyAdapter implements MusicProviderRepository {
 
+    private static final ResponseErrorHandler ERROR_HANDLER = new DefaultResponseErrorHandler();
+
     private final RestClient spotifyRestClient;
+    private final RestClient coverImageRestClient;
     private final SpotifyMapper spotifyMapper;
-
-    @Value("${spotify.auth-url}")
-    private String authUrl;
-
-    @Value("${spotify.client-id}")
-    private String clientId;
-
-    @Value("${spotify.client-secret}")
-    private String clientSecret;
-
-    private String cachedToken;
-    private Instant expiryTime;
-
-    private synchronized String getAccessToken() {
-        if (cachedToken != null && Instant.now().isBefore(expiryTime)) return cachedToken;
-
-        log.info("Fetching Spotify Access Token...");
-        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-        formData.add("grant_type", "client_credentials");
-
-        var response = spotifyRestClient.post()
-                .uri(authUrl)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .headers(httpHeaders -> httpHeaders.setBasicAuth(clientId, clientSecret))
-                .body(formData)
-                .retrieve()
-                .body(Map.class);
-
-        if (response == null || !response.containsKey("access_token")) {
-            log.error("Failed to obtain Spotify access token: response missing access_token");
-            throw new ProviderAuthenticationException("Failed to obtain Spotify access token");
-        }
-
-        log.info("Spotify Access Token Fetched");
-        this.cachedToken = (String) response.get("access_token");
-        Object expiresInObj = response.get("expires_in");
-        int expiresInSeconds = expiresInObj instanceof Number n ? n.intValue() : 3600;
-        this.expiryTime = Instant.now().plusSeconds(Math.max(0, expiresInSeconds - 60));
-        return cachedToken;
-    }
+    private final SpotifyTokenProvider spotifyTokenProvider;
 
     @Override
     public Track fetchMetadata(String isrCode) {
-        String token = getAccessToken();
-
-        if (token == null || token.isBlank()) {
-            throw new ProviderAuthenticationException("Spotify Access Token is missing");
+        ProviderCallEvent event = ProviderCallEvent.start("search");
+        event.setIsrCode(isrCode);
+        try {
+            SpotifySearchResponse response = withToken(token -> spotifyRestClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/v1/search")
+                            .queryParam("q", "isrc:" + isrCode)
+                            .queryParam("type", "track")
+                            .build())
+                    .headers(httpHeaders -> httpHeaders.setBearerAuth(token))
+                    .retrieve()
+                    .body((SpotifySearchResponse.class)));
+
+            if (response == null || response.tracks().items().isEmpty()) {
+                log.warn("Track not found in Spotify: isrCode = {}", isrCode);
+                event.setOutcome("not-found");
+                throw new TrackNotFoundException("Track not found with IRSC: " + isrCode);
+            }
+
+            var trackItem = response.tracks().items().getFirst();
+            Track track = spotifyMapper.toModel(trackItem, isrCode);
+            log.debug("Fetched metadata form Spotify: isrCode={}, name={}", isrCode, track.getName());
+            event.setAlbumId(track.getAlbumId());
+            event.setOutcome("success");
+            return track;
+        } finally {
+            event.commit();
         }
+    }
 
-        SpotifySearchResponse response = spotifyRestClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/v1/search")
-                        .queryParam("q", "isrc:" + isrCode)
-                        .queryParam("type", "track")
-                        .build())
-                .headers(httpHeaders -> httpHeaders.setBearerAuth(token))
-                .retrieve()
-                .body((SpotifySearchResponse.class));
+    @Override
+    public <T> T fetchCoverImage(String albumId, Function<InputStream, T> reader) {
+        return downloadCoverImage(findCoverUrl(albumId), reader);
+    }
 
-        if (response == null || response.tracks().items().isEmpty()) {
-            log.warn("Track not found in Spotify: isrCode = {}", isrCode);
-            throw new TrackNotFoundException("Track not found with IRSC: " + isrCode);
+    /** Looks up the album's first image; a separate provider call from the download that follows it. */
+    private String findCoverUrl(String albumId) {
+        ProviderCallEvent event = ProviderCallEvent.start("album");
+        event.setAlbumId(albumId);
+        try {
+            SpotifyAlbumResponse albumResponse = withToken(token -> spotifyRestClient.get()
+                    .uri("/v1/albums/{albumId}", albumId)
+                    .headers(httpHeaders -> httpHeaders.setBearerAuth(token))
+                    .retrieve()
+                    .body(SpotifyAlbumResponse.class));
+
+            if (albumResponse == null || albumResponse.images().isEmpty()) {
+                log.warn("Album not found in Spotify: albumId = {}", albumId);
+                event.setOutcome("not-found");
+                throw new ImageNotFoundException("No images found for album: " + albumId);
+            }
+
+            log.info("Fetching cover image for album={}", albumId);
+            event.setOutcome("success");
+            return albumResponse.images().getFirst().url();
+        } finally {
+            event.commit();
         }
-
-        var trackItem = response.tracks().items().getFirst();
-        Track track = spotifyMapper.toModel(trackItem, isrCode);
-        log.debug("Fetched metadata form Spotify: isrCode={}, name={}", isrCode, track.getName());
-        return track;
     }
 
+    /**
+     * Hands the response body to {@code reader} while the connection is open instead of reading it into a
+     * {@code byte[]}; error statuses are raised as usual before the reader sees anything.
+     */
     @Override
-    public byte[] fetchCoverImage(String albumId) {
-        String token = getAccessToken();
-
-        SpotifyAlbumResponse albumResponse = spotifyRestClient.get()
-                .uri("/v1/albums/{albumId}", albumId)
-                .headers(httpHeaders -> httpHeaders.setBearerAuth(token))
-                .retrieve()
-                .body(SpotifyAlbumResponse.class);
-
-        if (albumResponse == null || albumResponse.images().isEmpty()) {
-            log.warn("Album not found in Spotify: albumId = {}", albumId);
-            throw new ImageNotFoundException("No images found for album: " + albumId);
+    public <T> T downloadCoverImage(String imageUrl, Function<InputStream, T> reader) {
+        ProviderCallEvent event = ProviderCallEvent.start("cover-download");
+        try {
+            // URI rather than template: keeps each image URL out of the http.client.requests uri tag
+            T result = coverImageRestClient.get()
+                    .uri(URI.create(imageUrl))
+                    .exchange((request, response) -> {
+                        if (ERROR_HANDLER.hasError(response)) {
+                            ERROR_HANDLER.handleError(request.getURI(), request.getMethod(), response);
+                        }
+                        try (InputStream body = response.getBody()) {
+                            return reader.apply(body);
+                        }
+                    });
+            event.setOutcome("success");
+            return result;
+        } finally {
+            event.commit();
         }
+    }
 
-        String imageUrl = albumResponse.images().getFirst().url();
-        log.info("Fetching cover image for album={}", albumId);
-
-        return spotifyRestClient.get()
-                .uri(imageUrl)
-                .retrieve()
-                .body(byte[].class);
+    /** Runs an authenticated call; a 401 (token revoked or expired early) forces one refresh and retry. */
+    private <T> T withToken(Function<String, T> call) {
+        String token = spotifyTokenProvider.getToken();
+        try {
+            return call.apply(token);
+        } catch (HttpClientErrorException.Unauthorized e) {
+            return call.apply(spotifyTokenProvider.refreshRejected(token));
+        }
     }
 
 }
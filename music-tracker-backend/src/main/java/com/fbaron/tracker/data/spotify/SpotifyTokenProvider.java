@@ -0,0 +1,242 @@
+package com.fbaron.tracker.data.spotify;
+
+import com.fbaron.tracker.core.exception.ProviderAuthenticationException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the Spotify client-credentials token. Reads are a volatile load of an immutable holder, with no lock.
+ * A background task renews the token ahead of expiry, so request threads only fetch one themselves when
+ * it has already expired (or on the first call when startup prefetch is off). Concurrent refreshes, whether
+ * from expiry or from a 401, are coalesced into one call to {@code spotify.auth-url}.
+ * Do not log the token, clientId or clientSecret.
+ */
+@Slf4j
+public class SpotifyTokenProvider implements MeterBinder, AutoCloseable {
+
+    /** Tokens are treated as expired this long before Spotify's {@code expires_in}. */
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(60);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+
+    private final RestClient spotifyRestClient;
+    private final String authUrl;
+    private final String clientId;
+    private final String clientSecret;
+    private final Duration refreshAhead;
+    private final boolean prefetch;
+    private final Clock clock;
+
+    private final AtomicReference<AccessToken> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("spotify-token-refresh").daemon().factory());
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile Map<String, Timer> fetchTimers;
+
+    public SpotifyTokenProvider(RestClient spotifyRestClient, String authUrl, String clientId, String clientSecret,
+                                Duration refreshAhead, boolean prefetch, Clock clock) {
+        this.spotifyRestClient = spotifyRestClient;
+        this.authUrl = authUrl;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.refreshAhead = refreshAhead;
+        this.prefetch = prefetch;
+        this.clock = clock;
+    }
+
+    /** Returns a valid access token, fetching one only if none is valid. */
+    public String getToken() {
+        AccessToken token = current.get();
+        if (token != null && clock.instant().isBefore(token.expiresAt())) {
+            return token.value();
+        }
+        return await(refresh(token)).value();
+    }
+
+    /**
+     * Called after Spotify answered 401 for {@code rejectedToken}: refreshes it unless another thread already
+     * replaced it, and returns the token to retry with.
+     */
+    public String refreshRejected(String rejectedToken) {
+        AccessToken token = current.get();
+        if (token == null || !token.value().equals(rejectedToken)) {
+            return getToken();
+        }
+        log.warn("Spotify rejected the access token, refreshing before expiry");
+        return await(refresh(token)).value();
+    }
+
+    /** Fetches the first token in the background once the application is up, so no request waits for it. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetch() {
+        if (prefetch) {
+            scheduler.execute(() -> refreshAhead(null));
+        }
+    }
+
+    /** Number of tokens fetched from Spotify. */
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        fetchTimers = Map.of("success", fetchTimer(registry, "success"), "error", fetchTimer(registry, "error"));
+        FunctionCounter.builder("spotify.token.refreshes", refreshes, LongAdder::sum)
+                .description("Spotify access token requests")
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("spotify.token.refreshes", failures, LongAdder::sum)
+                .description("Spotify access token requests")
+                .tag("result", "failure")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Replaces {@code stale} with a fresh token. The caller that installs the in-flight future performs the
+     * fetch; everyone else waits on it. If {@code stale} was already replaced, the current token is returned.
+     */
+    private CompletableFuture<AccessToken> refresh(AccessToken stale) {
+        while (true) {
+            CompletableFuture<AccessToken> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            AccessToken latest = current.get();
+            if (latest != stale) {
+                return CompletableFuture.completedFuture(latest);
+            }
+            CompletableFuture<AccessToken> mine = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, mine)) {
+                long start = System.nanoTime();
+                try {
+                    AccessToken fresh = fetch();
+                    recordFetch("success", start);
+                    current.set(fresh);
+                    scheduleRefresh(fresh);
+                    mine.complete(fresh);
+                } catch (RuntimeException e) {
+                    recordFetch("error", start);
+                    failures.increment();
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.set(null);
+                }
+                return mine;
+            }
+        }
+    }
+
+    /** Times one token request as {@code spotify.token.fetch} once metrics are bound. */
+    private void recordFetch(String outcome, long start) {
+        Map<String, Timer> timers = fetchTimers;
+        if (timers != null) {
+            timers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer fetchTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("spotify.token.fetch")
+                .description("Spotify access token requests, including failed ones")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private void scheduleRefresh(AccessToken token) {
+        Duration delay = Duration.between(clock.instant(), token.refreshAt());
+        schedule(() -> refreshAhead(token), delay);
+    }
+
+    /** Background refresh; on failure retries while the token it meant to replace is still current. */
+    private void refreshAhead(AccessToken token) {
+        try {
+            refresh(token).join();
+        } catch (CompletionException e) {
+            log.warn("Background Spotify token refresh failed, retrying in {}: {}", RETRY_DELAY,
+                    e.getCause().getMessage());
+            if (current.get() == token) {
+                schedule(() -> refreshAhead(token), RETRY_DELAY);
+            }
+        }
+    }
+
+    private void schedule(Runnable task, Duration delay) {
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(task, Math.max(0, delay.toMillis()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private AccessToken fetch() {
+        log.info("Fetching Spotify Access Token...");
+        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
+        formData.add("grant_type", "client_credentials");
+
+        var response = spotifyRestClient.post()
+                .uri(authUrl)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .headers(httpHeaders -> httpHeaders.setBasicAuth(clientId, clientSecret))
+                .body(formData)
+                .retrieve()
+                .body(Map.class);
+
+        if (response == null || !(response.get("access_token") instanceof String value) || value.isBlank()) {
+            log.error("Failed to obtain Spotify access token: response missing access_token");
+            throw new ProviderAuthenticationException("Failed to obtain Spotify access token");
+        }
+
+        refreshes.increment();
+        log.info("Spotify Access Token Fetched");
+        Object expiresInObj = response.get("expires_in");
+        Duration lifetime = Duration.ofSeconds(expiresInObj instanceof Number n ? n.intValue() : 3600)
+                .minus(EXPIRY_MARGIN);
+        if (lifetime.isNegative()) {
+            lifetime = Duration.ZERO;
+        }
+        Instant now = clock.instant();
+        Duration ahead = refreshAhead.compareTo(lifetime.dividedBy(2)) < 0 ? refreshAhead : lifetime.dividedBy(2);
+        return new AccessToken(value, now.plus(lifetime), now.plus(lifetime).minus(ahead));
+    }
+
+    private static AccessToken await(CompletableFuture<AccessToken> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Immutable token snapshot; replaced as a whole, never mutated. */
+    private record AccessToken(String value, Instant expiresAt, Instant refreshAt) {
+    }
+
+}
@@ -1,13 +1,16 @@
 package com.fbaron.tracker.data.spotify.mapper;
 
 import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.data.spotify.entity.SpotifyImage;
 import com.fbaron.tracker.data.spotify.entity.SpotifyTrackItem;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 
+import java.util.List;
+
 /**
- * Maps Spotify API track items to domain {@link Track} (and duration ms to seconds).
+ * Maps Spotify API track items to domain {@link Track} (duration ms to seconds, first album image as cover URL).
  */
 @Mapper(componentModel = "spring")
 public interface SpotifyMapper {
@@ -20,12 +23,18 @@ public interface SpotifyMapper {
     @Mapping(target = "isExplicit", source = "item.explicit")
     @Mapping(target = "playbackSeconds", source = "item.duration_ms", qualifiedByName = "msToSeconds")
     @Mapping(target = "coverPath", ignore = true)
+    @Mapping(target = "coverUrl", source = "item.album.images", qualifiedByName = "firstImageUrl")
     Track toModel(SpotifyTrackItem item, String isrCode);
 
-
     @Named("msToSeconds")
     default long msToSeconds(long ms) {
         return ms / 1000;
     }
 
+    /** Spotify lists album images widest first; null when the search payload carries none. */
+    @Named("firstImageUrl")
+    default String firstImageUrl(List<SpotifyImage> images) {
+        return images == null || images.isEmpty() ? null : images.getFirst().url();
+    }
+
 }
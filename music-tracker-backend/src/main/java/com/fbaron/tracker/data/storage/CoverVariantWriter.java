@@ -0,0 +1,94 @@
+package com.fbaron.tracker.data.storage;
+
+import com.fbaron.tracker.core.model.CoverSize;
+import lombok.RequiredArgsConstructor;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Derives the smaller cover sizes from a stored original: scales it down in halving steps (a single large
+ * bilinear step would alias) and re-encodes it as a baseline JPEG at the configured quality with optimized
+ * Huffman tables and no EXIF/ICC metadata. Images already within the size are re-encoded without scaling.
+ */
+@RequiredArgsConstructor
+public class CoverVariantWriter {
+
+    private final float jpegQuality;
+
+    /** {@code album-123.jpg} → {@code album-123.small.jpg}, next to the original; the original for ORIGINAL. */
+    public static Path variantPath(Path original, CoverSize size) {
+        if (size == CoverSize.ORIGINAL) {
+            return original;
+        }
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return original.resolveSibling(base + "." + size.name().toLowerCase() + ".jpg");
+    }
+
+    /**
+     * Writes {@code original} scaled to fit {@code maxDimension} into {@code target}.
+     *
+     * @throws IOException if the original cannot be decoded or the target cannot be written
+     */
+    public void write(Path original, Path target, int maxDimension) throws IOException {
+        BufferedImage image = ImageIO.read(original.toFile());
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + original.getFileName());
+        }
+        BufferedImage scaled = scale(image, maxDimension);
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            JPEGImageWriteParam param = new JPEGImageWriteParam(null);
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setOptimizeHuffmanTables(true);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(scaled, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int maxDimension) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double factor = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * factor));
+        int targetHeight = Math.max(1, (int) Math.round(height * factor));
+
+        BufferedImage current = image;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width > targetWidth || height > targetHeight);
+        return current;
+    }
+
+    /** Redraws into an opaque RGB image, which also drops any alpha or CMYK layout JPEG cannot carry. */
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.fbaron.tracker.data.storage;
+
+import com.fbaron.tracker.core.exception.FileReadException;
+import com.fbaron.tracker.core.model.CoverImage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link CoverImage} backed by a file. Streams are channel-backed, so skipping to a range start is a seek and
+ * the bytes go to the response through a fixed-size copy buffer, whatever the size of the image.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FileCoverImage implements CoverImage {
+
+    private final Path file;
+    private final long contentLength;
+    private final long lastModified;
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public InputStream openStream() {
+        try {
+            return Files.newInputStream(file);
+        } catch (IOException e) {
+            log.error("Could not open cover at path: {} - {}", file, e.getMessage());
+            throw new FileReadException("Error reading image file");
+        }
+    }
+
+}
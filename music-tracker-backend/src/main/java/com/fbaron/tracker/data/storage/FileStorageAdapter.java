@@ -2,6 +2,11 @@ package com.fbaron.tracker.data.storage;
 
 import com.fbaron.tracker.core.exception.FileReadException;
 import com.fbaron.tracker.core.exception.StorageException;
+import com.fbaron.tracker.core.metrics.CoverIoEvent;
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.CoverSize;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.StoredCover;
 import com.fbaron.tracker.core.repository.FileStorageRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -10,10 +15,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.OptionalLong;
 
 /**
  * Adapter that stores and reads cover images on the local filesystem (path from config).
@@ -26,6 +36,9 @@ public class FileStorageAdapter implements FileStorageRepository {
     @Value("${app.storage.location}")
     private String storageLocation;
 
+    @Value("${app.storage.cover-variants.jpeg-quality:0.85}")
+    private float jpegQuality;
+
     /** Ensures the storage root directory exists at startup. */
     @PostConstruct
     public void init() {
@@ -39,22 +52,62 @@ public class FileStorageAdapter implements FileStorageRepository {
         }
     }
 
-    /** Writes cover image bytes to a file named {@code isrCode.jpg} under the storage root. */
+    /**
+     * Streams the cover into a temp file next to {@code albumId.jpg} under the storage root; a failed download
+     * leaves no file behind. The cover only becomes visible with {@link #publishCover}.
+     */
     @Override
-    public String saveToDisk(String isrCode, byte[] content) {
+    public StagedCover stageCover(String albumId, InputStream content) {
+        CoverIoEvent event = CoverIoEvent.start("write");
+        event.setAlbumId(albumId);
+        Path tempFile = null;
         try {
-            Path targetFile = Paths.get(storageLocation).resolve(isrCode + ".jpg");
+            Path targetFile = coverFile(albumId);
+            event.setPath(targetFile.toString());
 
             Files.createDirectories(targetFile.getParent());
 
-            Files.write(targetFile, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            log.info("Saved cover to disk: isrCode={}, path={}", isrCode, targetFile.toAbsolutePath());
+            tempFile = Files.createTempFile(targetFile.getParent(), albumId + "-", ".tmp");
+            long bytes;
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                bytes = content.transferTo(out);
+            }
+            event.setBytes(bytes);
+            StagedCover staged = new StagedCover(albumId, tempFile.toAbsolutePath().toString(), bytes);
+            tempFile = null;
+            return staged;
+        } catch (IOException e) {
+            log.error("Could not save cover: albumId={} - {}", albumId, e.getMessage());
+            throw new StorageException("Could not storage the image");
+        } finally {
+            deleteQuietly(tempFile);
+            event.commit();
+        }
+    }
+
+    /** Moves the staged file to {@code albumId.jpg} atomically: readers never see a partial image. */
+    @Override
+    public String publishCover(StagedCover staged) {
+        Path tempFile = Paths.get(staged.stagedPath());
+        Path targetFile = coverFile(staged.albumId());
+        try {
+            moveIntoPlace(tempFile, targetFile);
+            deleteVariants(targetFile);
+            log.info("Saved cover to disk: albumId={}, path={}, bytes={}", staged.albumId(),
+                    targetFile.toAbsolutePath(), staged.bytes());
             return targetFile.toAbsolutePath().toString();
         } catch (IOException e) {
+            log.error("Could not save cover: albumId={} - {}", staged.albumId(), e.getMessage());
             throw new StorageException("Could not storage the image");
+        } finally {
+            deleteQuietly(tempFile);
         }
     }
 
+    private Path coverFile(String albumId) {
+        return Paths.get(storageLocation).resolve(albumId + ".jpg");
+    }
+
     /** Reads file bytes from the given absolute path. */
     @Override
     public byte[] readFromDisk(String path) {
@@ -66,4 +119,105 @@ public class FileStorageAdapter implements FileStorageRepository {
         }
     }
 
+    /** Returns a cover that streams from the file; only its attributes (size, mtime) are read here. */
+    @Override
+    public CoverImage readCover(String path) {
+        CoverIoEvent event = CoverIoEvent.start("open");
+        event.setPath(path);
+        Path file = Paths.get(path);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            event.setBytes(attributes.size());
+            return new FileCoverImage(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            log.error("Could not read cover from path: {} - {}", path, e.getMessage());
+            throw new FileReadException("Error reading image file");
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public StoredCover statCover(String path) {
+        CoverIoEvent event = CoverIoEvent.start("stat");
+        event.setPath(path);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+            event.setBytes(attributes.size());
+            return new StoredCover(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            log.error("Could not stat cover at path: {} - {}", path, e.getMessage());
+            throw new FileReadException("Error reading image file");
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Removes the file if it is still there (e.g. a temp file whose move did not happen). */
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cover file: {} - {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the variant path, writing it first when missing. Concurrent first requests for one variant may
+     * both render it; each writes its own temp file and the atomic move keeps one complete image.
+     */
+    @Override
+    public String coverVariant(String path, CoverSize size) {
+        Path original = Paths.get(path);
+        Path variant = CoverVariantWriter.variantPath(original, size);
+        if (size == CoverSize.ORIGINAL || Files.isRegularFile(variant)) {
+            return variant.toString();
+        }
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(original.getParent(), variant.getFileName().toString(), ".tmp");
+            new CoverVariantWriter(jpegQuality).write(original, tempFile, size.getMaxDimension());
+            moveIntoPlace(tempFile, variant);
+            log.info("Generated cover variant: size={}, path={}, bytes={}", size, variant, Files.size(variant));
+            return variant.toString();
+        } catch (IOException e) {
+            log.error("Could not generate {} cover from path: {} - {}", size, path, e.getMessage());
+            throw new FileReadException("Error reading image file");
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /** Drops the variants of a replaced original; they are derived again from the new one on demand. */
+    private static void deleteVariants(Path original) {
+        for (CoverSize size : CoverSize.values()) {
+            if (size != CoverSize.ORIGINAL) {
+                deleteQuietly(CoverVariantWriter.variantPath(original, size));
+            }
+        }
+    }
+
+    /** Returns the file size, or empty when there is no file at the given path. */
+    @Override
+    public OptionalLong sizeOf(String path) {
+        try {
+            Path file = Paths.get(path);
+            return Files.isRegularFile(file) ? OptionalLong.of(Files.size(file)) : OptionalLong.empty();
+        } catch (IOException e) {
+            log.warn("Could not stat cover at path: {} - {}", path, e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
 }
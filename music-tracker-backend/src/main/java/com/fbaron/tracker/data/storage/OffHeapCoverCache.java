@@ -0,0 +1,144 @@
+package com.fbaron.tracker.data.storage;
+
+import com.fbaron.tracker.core.exception.FileReadException;
+import com.fbaron.tracker.core.metrics.CacheAccessEvent;
+import com.fbaron.tracker.core.metrics.CoverIoEvent;
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.CoverSize;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.StoredCover;
+import com.fbaron.tracker.core.repository.FileStorageRepository;
+import com.fbaron.tracker.data.cache.CoalescedLoad;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+
+/**
+ * Keeps hot cover images in direct (off-heap) buffers, bounded by a byte budget with Caffeine's
+ * frequency-aware eviction. Concurrent misses for one cover share a single file read, done outside the
+ * cache's locks (see {@link CoalescedLoad}). Covers larger than the per-entry limit are not cached and go
+ * to the delegate. Direct memory of evicted buffers is released once the buffer is garbage collected, so
+ * {@code -XX:MaxDirectMemorySize} must leave room above the budget.
+ */
+@Slf4j
+public class OffHeapCoverCache implements FileStorageRepository, MeterBinder {
+
+    static final String CACHE_NAME = "covers";
+
+    private final FileStorageRepository delegate;
+    private final long maxEntryBytes;
+    private final AsyncCache<String, ByteBufferCoverImage> cache;
+
+    public OffHeapCoverCache(FileStorageRepository delegate, long maxBytes, long maxEntryBytes) {
+        this.delegate = delegate;
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String path, ByteBufferCoverImage image) -> (int) image.contentLength())
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public StagedCover stageCover(String albumId, InputStream content) {
+        return delegate.stageCover(albumId, content);
+    }
+
+    @Override
+    public String publishCover(StagedCover staged) {
+        String path = delegate.publishCover(staged);
+        for (CoverSize size : CoverSize.values()) {
+            cache.synchronous().invalidate(CoverVariantWriter.variantPath(Paths.get(path), size).toString());
+        }
+        return path;
+    }
+
+    @Override
+    public byte[] readFromDisk(String path) {
+        return delegate.readFromDisk(path);
+    }
+
+    @Override
+    public CoverImage readCover(String path) {
+        CacheAccessEvent event = CacheAccessEvent.start(CACHE_NAME, path);
+        try {
+            CoverImage cached = CoalescedLoad.get(cache, path, key -> {
+                event.setHit(false);
+                return load(key);
+            });
+            return cached != null ? cached : delegate.readCover(path);
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public StoredCover statCover(String path) {
+        // the file is the source of truth for validators; a cached copy is invalidated whenever it is replaced
+        return delegate.statCover(path);
+    }
+
+    @Override
+    public String coverVariant(String path, CoverSize size) {
+        // a cached variant exists on disk: skip the delegate's stat (a quiet read does not count as a cache lookup)
+        String variant = CoverVariantWriter.variantPath(Paths.get(path), size).toString();
+        return cache.synchronous().policy().getIfPresentQuietly(variant) != null
+                ? variant : delegate.coverVariant(path, size);
+    }
+
+    @Override
+    public OptionalLong sizeOf(String path) {
+        return delegate.sizeOf(path);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), CACHE_NAME);
+        Gauge.builder("tracks.covers.cache.bytes", cache.synchronous(),
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Direct memory held by cached cover images")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /** Reads the file straight into a direct buffer; returns null (not cached) when it exceeds the entry limit. */
+    private ByteBufferCoverImage load(String path) {
+        CoverIoEvent event = CoverIoEvent.start("read");
+        event.setPath(path);
+        Path file = Paths.get(path);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            event.setBytes(size);
+            if (size > maxEntryBytes) {
+                log.debug("Cover too large for the cache, streaming from disk: path={}, bytes={}", path, size);
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+            return new ByteBufferCoverImage(buffer.asReadOnlyBuffer(), Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            log.error("Could not read cover from path: {} - {}", path, e.getMessage());
+            throw new FileReadException("Error reading image file");
+        } finally {
+            event.commit();
+        }
+    }
+
+}
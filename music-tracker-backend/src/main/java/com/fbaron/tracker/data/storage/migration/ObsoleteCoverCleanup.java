@@ -0,0 +1,105 @@
+package com.fbaron.tracker.data.storage.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Deletes cover files that a migration made obsolete, after Flyway has committed it ({@code afterMigrate}).
+ * A file still referenced by some {@code cover_path} is kept; after a failed migration nothing is deleted.
+ * Picked up by Flyway as a Spring bean.
+ */
+@Slf4j
+@Component
+public class ObsoleteCoverCleanup implements Callback {
+
+    private final Set<Path> candidates = new LinkedHashSet<>();
+
+    /** Schedules the files for deletion once the running migrations are committed. */
+    public synchronized void deleteAfterCommit(Collection<Path> files) {
+        candidates.addAll(files);
+    }
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.AFTER_MIGRATE || event == Event.AFTER_MIGRATE_ERROR;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public synchronized void handle(Event event, Context context) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        if (event == Event.AFTER_MIGRATE_ERROR) {
+            log.warn("Migration failed, keeping obsolete cover files: files={}", candidates.size());
+            candidates.clear();
+            return;
+        }
+        try {
+            Set<Path> referenced = loadReferencedCovers(context);
+            int removed = 0;
+            long reclaimed = 0;
+            for (Path file : candidates) {
+                if (!referenced.contains(file)) {
+                    long size = deleteIfExists(file);
+                    removed += size >= 0 ? 1 : 0;
+                    reclaimed += Math.max(size, 0);
+                }
+            }
+            log.info("Obsolete cover files removed: filesRemoved={}, bytesReclaimed={}", removed, reclaimed);
+        } catch (SQLException e) {
+            log.warn("Could not check cover references, keeping obsolete cover files - {}", e.getMessage());
+        } finally {
+            candidates.clear();
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "obsoleteCoverCleanup";
+    }
+
+    private static Set<Path> loadReferencedCovers(Context context) throws SQLException {
+        Set<Path> referenced = new HashSet<>();
+        try (PreparedStatement select = context.getConnection().prepareStatement(
+                "SELECT DISTINCT cover_path FROM tracks WHERE cover_path IS NOT NULL");
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                referenced.add(Paths.get(rows.getString(1)).toAbsolutePath());
+            }
+        }
+        return referenced;
+    }
+
+    /** Returns the bytes freed, or -1 when the file could not be deleted. */
+    private static long deleteIfExists(Path file) {
+        try {
+            long size = Files.isRegularFile(file) ? Files.size(file) : 0;
+            Files.deleteIfExists(file);
+            return size;
+        } catch (IOException e) {
+            log.warn("Could not delete obsolete cover: {} - {}", file, e.getMessage());
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.fbaron.tracker.data.storage.migration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves covers from per-ISRC files ({@code isrCode.jpg}) to one file per album ({@code albumId.jpg})
+ * and repoints every {@code cover_path} of the album to it. The old per-ISRC files are only handed to
+ * {@link ObsoleteCoverCleanup}, which deletes them once the updates are committed: a failed or rolled back
+ * migration leaves every row pointing at a file that still exists. Picked up by Flyway as a Spring bean.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class V2__AlbumKeyedCovers extends BaseJavaMigration {
+
+    private final ObsoleteCoverCleanup obsoleteCoverCleanup;
+
+    @Value("${app.storage.location}")
+    private String storageLocation;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        Map<String, List<Path>> coversByAlbum = loadCoversByAlbum(connection);
+        Path root = Paths.get(storageLocation).toAbsolutePath();
+        Files.createDirectories(root);
+
+        Set<Path> obsolete = new LinkedHashSet<>();
+        Set<Path> albumCovers = new LinkedHashSet<>();
+        int albums = 0;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE tracks SET cover_path = ? WHERE album_id = ? AND cover_path IS NOT NULL")) {
+            for (Map.Entry<String, List<Path>> album : coversByAlbum.entrySet()) {
+                Path target = root.resolve(album.getKey() + ".jpg");
+                if (!Files.isRegularFile(target)) {
+                    Path source = album.getValue().stream().filter(Files::isRegularFile).findFirst().orElse(null);
+                    if (source == null) {
+                        log.warn("No cover file left on disk for album, leaving rows unchanged: albumId={}", album.getKey());
+                        continue;
+                    }
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                update.setString(1, target.toString());
+                update.setString(2, album.getKey());
+                update.addBatch();
+                albumCovers.add(target);
+                obsolete.addAll(album.getValue());
+                albums++;
+            }
+            update.executeBatch();
+        }
+
+        obsolete.removeAll(albumCovers);
+        obsoleteCoverCleanup.deleteAfterCommit(obsolete);
+        log.info("Album-keyed covers migrated: albums={}, obsoleteFiles={}", albums, obsolete.size());
+    }
+
+    private static Map<String, List<Path>> loadCoversByAlbum(Connection connection) throws SQLException {
+        Map<String, List<Path>> coversByAlbum = new LinkedHashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT album_id, cover_path FROM tracks WHERE cover_path IS NOT NULL ORDER BY album_id, isr_code");
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                coversByAlbum.computeIfAbsent(rows.getString(1), albumId -> new ArrayList<>())
+                        .add(Paths.get(rows.getString(2)).toAbsolutePath());
+            }
+        }
+        return coversByAlbum;
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.fbaron.tracker.web.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+
+/**
+ * Remembers successful HTTP Basic logins for a short TTL so repeated requests with the same credentials skip
+ * the password encoder (BCrypt costs milliseconds of CPU per check). Entries are keyed by an HMAC-SHA256 of
+ * username and password under a random per-process key, so neither the password nor an offline-crackable hash
+ * of it is kept. Only the principal and authorities are remembered; every hit gets its own authentication
+ * token, since callers may mutate it (e.g. set details or erase credentials). Failed logins are never cached
+ * and always reach the delegate. The cache is node-local: nothing is shared between instances and a restart
+ * simply re-verifies. Stats are published as {@code cache.*{cache=credentials}}.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider, MeterBinder {
+
+    static final String CACHE_NAME = "credentials";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final SecretKey key;
+    private final Cache<String, VerifiedLogin> verified;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl, long maxEntries) {
+        this.delegate = delegate;
+        this.key = newKey();
+        this.verified = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)
+                || !(authentication.getCredentials() instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+        String cacheKey = hmac(authentication.getName(), password);
+        VerifiedLogin cached = verified.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached.toAuthentication(authentication);
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            verified.put(cacheKey, new VerifiedLogin(result.getPrincipal(), result.getAuthorities()));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verified, CACHE_NAME);
+    }
+
+    /** Number of credential pairs currently remembered. */
+    public long size() {
+        return verified.estimatedSize();
+    }
+
+
+    private String hmac(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            // a Basic user-id cannot contain ':', so the split between username and password is unambiguous
+            mac.update((byte) ':');
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static SecretKey newKey() {
+        try {
+            return KeyGenerator.getInstance(HMAC_ALGORITHM).generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /** What a successful login established; never the password. */
+    private record VerifiedLogin(Object principal, Collection<? extends GrantedAuthority> authorities) {
+
+        /** A fresh token per request, carrying the details (e.g. remote address) of the login being checked. */
+        Authentication toAuthentication(Authentication login) {
+            UsernamePasswordAuthenticationToken token =
+                    UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities);
+            token.setDetails(login.getDetails());
+            return token;
+        }
+    }
+
+}
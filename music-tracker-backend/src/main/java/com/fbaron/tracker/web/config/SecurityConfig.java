@@ -1,25 +1,39 @@
 package com.fbaron.tracker.web.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
- * Security configuration: HTTP Basic auth for all endpoints except actuator/health, stateless, CSRF disabled.
+ * Security configuration: HTTP Basic auth for all endpoints except actuator health and its probes, stateless,
+ * CSRF disabled. The API user comes from {@code spring.security.user.*}; its password may be stored encoded
+ * ({@code {bcrypt}...}), in which case verified logins are cached briefly ({@code app.security.credential-cache.*}).
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /** Same rule as Boot's default user: a password without an {@code {id}} prefix is plain text. */
+    private static final Pattern ENCODED_PASSWORD = Pattern.compile("^\\{.+}.*$");
+
     /**
      * Configures the security filter chain (Basic auth, public health, stateless sessions).
      */
@@ -31,12 +45,35 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/liveness",
+                                "/actuator/health/readiness").permitAll()
                         .anyRequest().authenticated())
                 .httpBasic(basic -> {});
         return http.build();
     }
 
+    /**
+     * Basic credentials checked against the configured user, with successful logins remembered for
+     * {@code app.security.credential-cache.ttl} so the password encoder runs once per client and TTL instead of
+     * on every request. Enabled unless {@code app.security.credential-cache.enabled} is false.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.security.credential-cache", name = "enabled", havingValue = "true",
+            matchIfMissing = true)
+    public CachingAuthenticationProvider authenticationProvider(
+            SecurityProperties properties,
+            @Value("${app.security.credential-cache.ttl:5m}") Duration ttl,
+            @Value("${app.security.credential-cache.max-entries:10000}") long maxEntries) {
+        return new CachingAuthenticationProvider(userPasswordProvider(properties), ttl, maxEntries);
+    }
+
+    /** Verifies every request with the password encoder ({@code app.security.credential-cache.enabled=false}). */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.security.credential-cache", name = "enabled", havingValue = "false")
+    public DaoAuthenticationProvider uncachedAuthenticationProvider(SecurityProperties properties) {
+        return userPasswordProvider(properties);
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -45,7 +82,22 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(List.of("*"));
         configuration.setAllowedMethods(List.of("*"));
         configuration.setAllowedHeaders(List.of("*"));
+        // lets the frontend read the per-stage breakdown (see ServerTimingAdvice)
+        configuration.setExposedHeaders(List.of("Server-Timing"));
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
+
+    private static DaoAuthenticationProvider userPasswordProvider(SecurityProperties properties) {
+        SecurityProperties.User user = properties.getUser();
+        String password = ENCODED_PASSWORD.matcher(user.getPassword()).matches()
+                ? user.getPassword() : "{noop}" + user.getPassword();
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(User.withUsername(user.getName())
+                .password(password)
+                .roles(user.getRoles().toArray(String[]::new))
+                .build());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(users);
+        provider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        return provider;
+    }
 }
@@ -0,0 +1,97 @@
+package com.fbaron.tracker.web.config;
+
+import com.fbaron.tracker.core.metrics.StageTimings;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Adds a {@code Server-Timing} header to API responses of authenticated requests, e.g.
+ * {@code db;dur=3.1, provider-search;dur=240.4, cover-dl;dur=180.0, disk;dur=2.2, total;dur=431.0}. The stages
+ * are the port calls the request made (see {@link StageTimings}); collection starts before the controller runs
+ * and the header is written with the body. {@code Timing-Allow-Origin} lets the frontend's devtools and the
+ * Resource Timing API show the breakdown cross-origin. Disabled with {@code app.http.server-timing.enabled=false}.
+ */
+@RestControllerAdvice
+@ConditionalOnProperty(prefix = "app.http.server-timing", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object>, HandlerInterceptor, WebMvcConfigurer {
+
+    static final String SERVER_TIMING = "Server-Timing";
+    static final String TIMING_ALLOW_ORIGIN = "Timing-Allow-Origin";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StageTimings.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        StageTimings.clear();
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        StageTimings timings = StageTimings.current();
+        if (timings != null && isAuthenticated()) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set(SERVER_TIMING, format(timings));
+            String origin = request.getHeaders().getOrigin();
+            if (origin != null) {
+                headers.set(TIMING_ALLOW_ORIGIN, origin);
+            }
+        }
+        return body;
+    }
+
+    static String format(StageTimings timings) {
+        StringBuilder header = new StringBuilder(128);
+        timings.forEach((stage, nanos) -> append(header, stage, nanos));
+        append(header, "total", timings.totalNanos());
+        return header.toString();
+    }
+
+    private static void append(StringBuilder header, String stage, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(stage).append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0));
+    }
+
+    private static boolean isAuthenticated() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+
+}
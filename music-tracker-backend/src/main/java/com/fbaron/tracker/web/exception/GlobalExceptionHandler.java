@@ -3,14 +3,17 @@ package com.fbaron.tracker.web.exception;
 import com.fbaron.tracker.core.exception.FileReadException;
 import com.fbaron.tracker.core.exception.ImageNotFoundException;
 import com.fbaron.tracker.core.exception.ProviderAuthenticationException;
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
 import com.fbaron.tracker.core.exception.StorageException;
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.client.ResourceAccessException;
 
 import java.time.LocalDateTime;
@@ -49,6 +52,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(problem);
     }
 
+    /** Provider throttling us (or otherwise not taking calls) → 503 with Retry-After. */
+    @ExceptionHandler(ProviderUnavailableException.class)
+    public ResponseEntity<ProblemDetail> handleProviderUnavailable(ProviderUnavailableException ex) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problem.setTitle("Music Provider Unavailable");
+        problem.setProperty("timestamp", LocalDateTime.now());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(problem);
+    }
+
     /** File read error (e.g. cover image) → 500 Internal Server Error. */
     @ExceptionHandler(FileReadException.class)
     public ResponseEntity<ProblemDetail> handleStorageError(FileReadException ex) {
@@ -109,4 +124,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(problem);
     }
 
+    /** Unparseable path or query parameter (e.g. unknown cover size) → 400 Bad Request. */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ProblemDetail> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.BAD_REQUEST,
+                ex.getName() + ": invalid value '" + ex.getValue() + "'"
+        );
+        problem.setTitle("Invalid Parameter");
+        problem.setProperty("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(problem);
+    }
+
 }
@@ -0,0 +1,77 @@
+package com.fbaron.tracker.web.rest;
+
+import com.fbaron.tracker.core.model.CoverImage;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adapts a {@link CoverImage} to a Spring {@link org.springframework.core.io.Resource} so the message
+ * converters stream it with a known {@code Content-Length} instead of materializing a {@code byte[]}.
+ * The same length lets {@code Range} requests be cut into regions that are skipped to and streamed.
+ * Bytes actually read for the response (skipped range prefixes excluded) are added to {@code bytesServed}.
+ */
+class CoverImageResource extends AbstractResource {
+
+    private final CoverImage coverImage;
+    private final String description;
+    private final LongAdder bytesServed;
+
+    CoverImageResource(CoverImage coverImage, String isrCode, LongAdder bytesServed) {
+        this.coverImage = coverImage;
+        this.description = "cover image [" + isrCode + "]";
+        this.bytesServed = bytesServed;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return coverImage.contentLength();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new CountingInputStream(coverImage.openStream(), bytesServed);
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final LongAdder count;
+
+        private CountingInputStream(InputStream in, LongAdder count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.add(n);
+            }
+            return n;
+        }
+    }
+
+}
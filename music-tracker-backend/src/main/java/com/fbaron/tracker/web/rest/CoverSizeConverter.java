@@ -0,0 +1,21 @@
+package com.fbaron.tracker.web.rest;
+
+import com.fbaron.tracker.core.model.CoverSize;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Binds the {@code size} query parameter case-insensitively ({@code small}, {@code medium}, {@code original}).
+ * Unknown values fail conversion and are answered with 400.
+ */
+@Component
+public class CoverSizeConverter implements Converter<String, CoverSize> {
+
+    @Override
+    public CoverSize convert(String source) {
+        return CoverSize.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+
+}
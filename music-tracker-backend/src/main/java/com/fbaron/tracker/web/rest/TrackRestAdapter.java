@@ -1,6 +1,11 @@
 package com.fbaron.tracker.web.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.CoverSize;
 import com.fbaron.tracker.core.model.RegistrationResult;
+import com.fbaron.tracker.core.model.StoredCover;
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.core.usecase.GetCoverImageUseCase;
 import com.fbaron.tracker.core.usecase.GetTrackUseCase;
@@ -8,18 +13,33 @@ import com.fbaron.tracker.core.usecase.RegisterTrackUseCase;
 import com.fbaron.tracker.web.dto.RegisterTrackDto;
 import com.fbaron.tracker.web.dto.TrackDto;
 import com.fbaron.tracker.web.mapper.TrackDtoMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * REST controller for track operations: register, get metadata, get cover image.
@@ -29,12 +49,18 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/tracks")
-public class TrackRestAdapter implements TrackRestApi {
+public class TrackRestAdapter implements TrackRestApi, MeterBinder {
 
     private final RegisterTrackUseCase registerTrackUseCase;
     private final GetTrackUseCase getTrackUseCase;
     private final GetCoverImageUseCase getCoverImageUseCase;
     private final TrackDtoMapper trackDtoMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.http.cache-max-age:7d}")
+    private Duration cacheMaxAge;
+
+    private final Map<CoverSize, LongAdder> coverBytesServed = newCoverCounters();
 
     /** Registers a track by ISRC (201 if created, 200 if already exists). */
     @Override
@@ -51,25 +77,80 @@ public class TrackRestAdapter implements TrackRestApi {
         return ResponseEntity.ok(trackDto);
     }
 
-    /** Returns stored track metadata by ISRC. */
+    /**
+     * Returns stored track metadata by ISRC. Tracks do not change once registered, so the response carries a
+     * content-hash ETag and Spring MVC answers a matching {@code If-None-Match} with 304 and no body. The hash is
+     * taken over the JSON written by the same {@link ObjectMapper} the message converter uses, i.e. the bytes
+     * sent, so it is a strong validator.
+     */
     @Override
     @GetMapping(path = "/{isrCode}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<TrackDto> getTrackMetadata(@PathVariable String isrCode) {
         log.info("Get Track metadata: isrCode={}", isrCode);
         Track track = getTrackUseCase.getTrackByIsrCode(isrCode);
         TrackDto trackDto = trackDtoMapper.toDto(track);
-        return ResponseEntity.ok(trackDto);
+        return ResponseEntity.ok()
+                .eTag(contentHash(trackDto))
+                .cacheControl(cacheControl())
+                .body(trackDto);
     }
 
-    /** Returns cover image bytes for the track (JPEG) by ISRC. */
+    /**
+     * Streams the cover image for the track (JPEG) by ISRC in the requested size. Returning a {@link Resource}
+     * lets Spring MVC answer {@code Range} requests with 206 and set {@code Content-Length}/{@code Accept-Ranges}
+     * itself. The validators come from a stat of the stored file (size and mtime) and are checked before the
+     * cover is read, so a 304 touches neither the cover cache nor the file's content.
+     */
     @Override
     @GetMapping("/{isrCode}/cover")
-    public ResponseEntity<byte[]> getCover(@PathVariable String isrCode) {
-        log.info("Get Track cover Image: isrCode={}", isrCode);
-        byte[] imageBytes = getCoverImageUseCase.getCoverImage(isrCode);
+    public ResponseEntity<Resource> getCover(@PathVariable String isrCode,
+                                             @RequestParam(defaultValue = "original") CoverSize size,
+                                             WebRequest webRequest) {
+        log.info("Get Track cover Image: isrCode={}, size={}", isrCode, size);
+        StoredCover cover = getCoverImageUseCase.findCover(isrCode, size);
+        String eTag = Long.toHexString(cover.contentLength()) + "-" + Long.toHexString(cover.lastModified());
+        if (webRequest.checkNotModified(eTag, cover.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl()).build();
+        }
+        CoverImage coverImage = getCoverImageUseCase.getCoverImage(cover);
         return ResponseEntity.ok()
+                .eTag(eTag)
+                .lastModified(cover.lastModified())
+                .cacheControl(cacheControl())
                 .contentType(MediaType.IMAGE_JPEG)
-                .body(imageBytes);
+                .body(new CoverImageResource(coverImage, isrCode, coverBytesServed.get(size)));
+    }
+
+    /** Cover bytes written to responses per size, to see what the variants save over always sending originals. */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        coverBytesServed.forEach((size, bytes) ->
+                FunctionCounter.builder("tracks.covers.served.bytes", bytes, LongAdder::sum)
+                        .description("Cover image bytes sent to clients")
+                        .baseUnit("bytes")
+                        .tag("size", size.name().toLowerCase(Locale.ROOT))
+                        .register(registry));
+    }
+
+    private static Map<CoverSize, LongAdder> newCoverCounters() {
+        Map<CoverSize, LongAdder> counters = new EnumMap<>(CoverSize.class);
+        for (CoverSize size : CoverSize.values()) {
+            counters.put(size, new LongAdder());
+        }
+        return counters;
+    }
+
+    private String contentHash(TrackDto trackDto) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(trackDto));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize track: " + trackDto.isrCode(), e);
+        }
+    }
+
+    /** Responses require credentials, so only the client may cache them, not shared proxies. */
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(cacheMaxAge).cachePrivate();
     }
 
 }
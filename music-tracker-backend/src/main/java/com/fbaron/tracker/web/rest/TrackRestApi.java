@@ -1,5 +1,6 @@
 package com.fbaron.tracker.web.rest;
 
+import com.fbaron.tracker.core.model.CoverSize;
 import com.fbaron.tracker.web.dto.RegisterTrackDto;
 import com.fbaron.tracker.web.dto.TrackDto;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,8 +10,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * REST API contract for track management: register by ISRC, get metadata, get cover image.
@@ -36,6 +39,7 @@ public interface TrackRestApi {
     @Operation(summary = "Get track metadata", description = "Retrieves stored track information from the local database.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Metadata retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Metadata unchanged since the ETag sent in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Track not found in local database",
                     content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
     })
@@ -43,17 +47,31 @@ public interface TrackRestApi {
             @Parameter(description = "The ISRC code of the track", example = "USMC18620549")
             String isrCode);
 
-    @Operation(summary = "Get cover image", description = "Returns the binary image data for the track cover.")
+    @Operation(summary = "Get cover image", description = "Returns the binary image data for the track cover." +
+            " Sizes: small (64px thumbnail), medium (300px) or original (as downloaded); smaller sizes are" +
+            " generated on first request and cached on disk. Supports byte ranges (Range header) for partial downloads.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Image retrieved successfully",
                     content = @Content(mediaType = "image/jpeg")),
+            @ApiResponse(responseCode = "304",
+                    description = "Image unchanged since the validator sent in If-None-Match or If-Modified-Since"),
+            @ApiResponse(responseCode = "206", description = "Requested byte range of the image",
+                    content = @Content(mediaType = "image/jpeg")),
+            @ApiResponse(responseCode = "400", description = "Unknown cover size",
+                    content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
             @ApiResponse(responseCode = "404", description = "Track not found in local database",
                     content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
             @ApiResponse(responseCode = "500", description = "Error reading file from disk",
                     content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
     })
-    ResponseEntity<byte[]> getCover(
+    ResponseEntity<Resource> getCover(
             @Parameter(description = "The ISRC code of the track", example = "USMC18620549")
-            String isrCode);
+            String isrCode,
+            @Parameter(description = "Cover size: small, medium or original",
+                    schema = @Schema(allowableValues = {"small", "medium", "original"}, defaultValue = "original"))
+            CoverSize size,
+            @Parameter(hidden = true)
+            WebRequest webRequest);
 
 }
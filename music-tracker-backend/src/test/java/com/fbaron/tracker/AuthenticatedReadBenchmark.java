@@ -0,0 +1,168 @@
+package com.fbaron.tracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Authenticated {@code GET /api/v1/tracks/{isrc}} throughput with a BCrypt-encoded API password, verifying the
+ * password on every request ({@code app.security.credential-cache.enabled=false}) versus the verified-credential
+ * cache. The track is registered once through a local Spotify stub; reads are then served from the track cache, so
+ * authentication dominates the request cost. Run with {@code ./gradlew benchmark}; excluded from {@code test}.
+ */
+@Tag("benchmark")
+class AuthenticatedReadBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthenticatedReadBenchmark.class);
+    private static final String BASE = "/tracker/api/v1/tracks";
+    private static final String ISRC = "USMC18620549";
+    private static final String USER = "testuser";
+    private static final String PASSWORD = "testpass";
+    private static final int CLIENTS = 16;
+    private static final Duration WARM_UP = Duration.ofSeconds(2);
+    private static final Duration MEASURE = Duration.ofSeconds(5);
+
+    @TempDir
+    Path workDir;
+
+    private SpotifyStubServer provider;
+
+    @BeforeEach
+    void startProvider() throws IOException {
+        provider = new SpotifyStubServer(Duration.ZERO, Duration.ZERO, new byte[1024]);
+    }
+
+    @AfterEach
+    void stopProvider() {
+        provider.close();
+    }
+
+    @Test
+    @DisplayName("BCrypt on every request versus cached verified credentials")
+    void uncachedVersusCachedCredentials() throws Exception {
+        String encoded = "{bcrypt}" + new BCryptPasswordEncoder().encode(PASSWORD);
+
+        Result uncached = run(false, encoded);
+        Result cached = run(true, encoded);
+
+        for (Result result : new Result[]{uncached, cached}) {
+            log.info("credential cache {}: clients={} throughput={} req/s p50={} ms p99={} ms errors={}",
+                    result.cacheEnabled() ? "on" : "off", CLIENTS, result.throughput(), result.p50Millis(),
+                    result.p99Millis(), result.errors());
+        }
+        assertThat(uncached.errors()).isZero();
+        assertThat(cached.errors()).isZero();
+        assertThat(cached.throughput()).isGreaterThan(uncached.throughput());
+    }
+
+    private Result run(boolean cacheEnabled, String encodedPassword) throws Exception {
+        String mode = cacheEnabled ? "cached" : "uncached";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .run(arguments(mode, cacheEnabled, encodedPassword));
+             HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + BASE;
+            HttpResponse<Void> registered = client.send(request(URI.create(base))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"isrCode\":\"" + ISRC + "\"}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            assertThat(registered.statusCode()).isEqualTo(201);
+
+            HttpRequest read = request(URI.create(base + "/" + ISRC)).GET().build();
+            drive(client, read, WARM_UP);
+            Load load = drive(client, read, MEASURE);
+
+            long[] latencies = load.latencies().stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Result(cacheEnabled, latencies.length * 1_000L / MEASURE.toMillis(),
+                    percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99), load.errors().sum());
+        }
+    }
+
+    private String[] arguments(String mode, boolean cacheEnabled, String encodedPassword) {
+        return Stream.concat(Arrays.stream(provider.arguments()), Stream.of(
+                "--spring.profiles.active=test",
+                "--server.port=0",
+                "--spring.security.user.name=" + USER,
+                "--spring.security.user.password=" + encodedPassword,
+                "--app.security.credential-cache.enabled=" + cacheEnabled,
+                "--spring.datasource.url=jdbc:h2:mem:auth-" + mode
+                        + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--app.storage.location=" + workDir.resolve(mode)
+        )).toArray(String[]::new);
+    }
+
+    /** Closed loop on platform threads: each client sends its next request as soon as the previous one returns. */
+    private static Load drive(HttpClient client, HttpRequest request, Duration duration) throws InterruptedException {
+        Load load = new Load(new ConcurrentLinkedQueue<>(), new LongAdder());
+        long end = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            Thread.ofPlatform().start(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            load.latencies().add(System.nanoTime() - start);
+                        } else {
+                            load.errors().increment();
+                        }
+                    }
+                } catch (IOException e) {
+                    load.errors().increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return load;
+    }
+
+    private static HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).header("Authorization", "Basic " + Base64.getEncoder()
+                .encodeToString((USER + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static long percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return Duration.ofNanos(sortedNanos[Math.max(index, 0)]).toMillis();
+    }
+
+    private record Load(Queue<Long> latencies, LongAdder errors) {
+    }
+
+    private record Result(boolean cacheEnabled, long throughput, long p50Millis, long p99Millis, long errors) {
+    }
+}
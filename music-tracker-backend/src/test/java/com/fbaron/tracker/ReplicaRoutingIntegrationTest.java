@@ -0,0 +1,119 @@
+package com.fbaron.tracker;
+
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Integration test of read/write routing with two H2 instances standing in for the primary and the replica. Nothing
+ * replicates between them, so a row is on the replica only if the test puts it there: every registration looks
+ * like a write the replica has not caught up with yet. The track cache is off so reads reach the database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        "app.datasource.replica.hikari.maximum-pool-size=3",
+        "app.cache.tracks.enabled=false"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+    private static final String BASE = "/api/v1/tracks";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private MusicProviderRepository musicProviderRepository;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Test
+    @DisplayName("metadata reads are served by the replica pool")
+    void readsComeFromTheReplica() {
+        replica().update("""
+                insert into tracks (isr_code, name, artist_name, album_name, album_id, is_explicit, playback_seconds)
+                values ('QZREP2600001', 'Replica Only', 'Artist', 'Album', 'album-rep', false, 180)""");
+
+        ResponseEntity<String> response = restTemplate.withBasicAuth("testuser", "testpass")
+                .getForEntity(BASE + "/QZREP2600001", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("Replica Only");
+        assertThat(meterRegistry.get("hikaricp.connections.max").tag("pool", "replica").gauge().value())
+                .isEqualTo(3.0);
+        assertThat(meterRegistry.get("hikaricp.connections.max").tag("pool", "primary").gauge().value())
+                .isEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("a registered track is readable right away although the replica does not have it yet")
+    void readYourWrites() {
+        String isrCode = "QZREP2600002";
+        when(musicProviderRepository.fetchMetadata(isrCode)).thenReturn(Track.builder()
+                .isrCode(isrCode)
+                .name("Fresh Track")
+                .artistName("Artist")
+                .albumName("Album")
+                .albumId("album-rep-2")
+                .isExplicit(false)
+                .playbackSeconds(200L)
+                .build());
+        when(musicProviderRepository.fetchCoverImage(eq("album-rep-2"), any())).thenAnswer(invocation ->
+                invocation.<Function<InputStream, Object>>getArgument(1)
+                        .apply(new ByteArrayInputStream(new byte[]{0x01})));
+        TestRestTemplate authenticated = restTemplate.withBasicAuth("testuser", "testpass");
+        HttpHeaders json = new HttpHeaders();
+        json.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> registered = authenticated.postForEntity(BASE,
+                new HttpEntity<>("{\"isrCode\":\"" + isrCode + "\"}", json), String.class);
+        ResponseEntity<String> read = authenticated.getForEntity(BASE + "/" + isrCode, String.class);
+
+        assertThat(registered.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(read.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(read.getBody()).contains("Fresh Track");
+        assertThat(replica().queryForObject("select count(*) from tracks where isr_code = ?", Long.class, isrCode))
+                .isZero();
+        assertThat(meterRegistry.get("tracks.replica.fallbacks").tag("result", "hit").functionCounter().count())
+                .isPositive();
+    }
+
+    private static JdbcTemplate replica() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(REPLICA_URL);
+        dataSource.setUser("sa");
+        return new JdbcTemplate(dataSource);
+    }
+}
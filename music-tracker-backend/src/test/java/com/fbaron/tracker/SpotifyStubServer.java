@@ -0,0 +1,92 @@
+package com.fbaron.tracker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the Spotify token, search and image endpoints used by the load benchmarks. Search and
+ * image responses are delayed by a fixed latency; every ISRC is found, on its own album, with a cover served by
+ * the stub. Requests are handled on virtual threads so the stub itself never limits concurrency.
+ */
+final class SpotifyStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final String url;
+
+    SpotifyStubServer(Duration searchLatency, Duration imageLatency, byte[] cover) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 10_000);
+        server.setExecutor(executor);
+        url = "http://localhost:" + server.getAddress().getPort();
+        server.createContext("/api/token", exchange -> respond(exchange, "application/json",
+                "{\"access_token\":\"stub-token\",\"token_type\":\"Bearer\",\"expires_in\":3600}"
+                        .getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/v1/search", exchange -> {
+            sleep(searchLatency);
+            respond(exchange, "application/json", searchResult(isrcFrom(exchange)).getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/images/", exchange -> {
+            sleep(imageLatency);
+            respond(exchange, "image/jpeg", cover);
+        });
+        server.start();
+    }
+
+    /** Command line arguments pointing the app at this stub. */
+    String[] arguments() {
+        return new String[]{"--spotify.api-base-url=" + url, "--spotify.auth-url=" + url + "/api/token"};
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String searchResult(String isrc) {
+        return """
+                {"tracks":{"items":[{"name":"Load Test Track","explicit":false,"duration_ms":180000,
+                "album":{"id":"album-%1$s","name":"Load Test Album","images":[{"url":"%2$s/images/%1$s.jpg"}]},
+                "artists":[{"name":"Load Test Artist"}]}]}}""".formatted(isrc, url);
+    }
+
+    private static String isrcFrom(HttpExchange exchange) {
+        return Arrays.stream(exchange.getRequestURI().getRawQuery().split("&"))
+                .map(parameter -> URLDecoder.decode(parameter, StandardCharsets.UTF_8))
+                .filter(parameter -> parameter.startsWith("q=isrc:"))
+                .map(parameter -> parameter.substring("q=isrc:".length()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        try (InputStream request = exchange.getRequestBody()) {
+            request.transferTo(OutputStream.nullOutputStream());
+        }
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
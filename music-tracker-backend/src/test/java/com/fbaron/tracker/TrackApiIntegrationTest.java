@@ -2,20 +2,34 @@ package com.fbaron.tracker;
 
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import com.zaxxer.hikari.HikariDataSource;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
@@ -27,11 +41,15 @@ import static org.mockito.Mockito.when;
 @ActiveProfiles("test")
 class TrackApiIntegrationTest {
 
+    private static final Logger log = LoggerFactory.getLogger(TrackApiIntegrationTest.class);
+
     private static final String ISRC = "USMC18620549";
     private static final String BASE = "/api/v1/tracks";
 
     @Autowired
     private TestRestTemplate restTemplate;
+    @Autowired
+    private DataSource dataSource;
 
     @MockBean
     private MusicProviderRepository musicProviderRepository;
@@ -52,7 +70,7 @@ class TrackApiIntegrationTest {
         byte[] coverBytes = new byte[]{0x00, (byte) 0xFF, 0x0A};
 
         when(musicProviderRepository.fetchMetadata(ISRC)).thenReturn(fromProvider);
-        when(musicProviderRepository.fetchCoverImage(eq("album-123"))).thenReturn(coverBytes);
+        when(musicProviderRepository.fetchCoverImage(eq("album-123"), any())).thenAnswer(cover(coverBytes));
 
         TestRestTemplate authenticated = restTemplate.withBasicAuth("testuser", "testpass");
 
@@ -64,6 +82,9 @@ class TrackApiIntegrationTest {
 
         assertThat(registerResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
         assertThat(registerResponse.getBody()).contains(ISRC).contains("Integration Test Track");
+        assertThat(registerResponse.getHeaders().getFirst("Server-Timing"))
+                .contains("db;dur=", "provider-search;dur=", "provider-album;dur=", "disk;dur=", "db-insert;dur=",
+                        "total;dur=");
 
         // Get metadata
         ResponseEntity<String> getResponse = authenticated.getForEntity(BASE + "/" + ISRC, String.class);
@@ -76,10 +97,100 @@ class TrackApiIntegrationTest {
         assertThat(coverResponse.getBody()).isEqualTo(coverBytes);
     }
 
+    @Test
+    @DisplayName("revalidating a cached cover returns 304 with no body – bandwidth and latency logged")
+    void conditionalGetSkipsTheBody() {
+        String isrCode = "USMC18620550";
+        byte[] coverBytes = new byte[64 * 1024];
+        when(musicProviderRepository.fetchMetadata(isrCode)).thenReturn(Track.builder()
+                .isrCode(isrCode)
+                .name("Conditional Track")
+                .artistName("Test Artist")
+                .albumName("Conditional Album")
+                .albumId("album-456")
+                .isExplicit(false)
+                .playbackSeconds(200L)
+                .build());
+        when(musicProviderRepository.fetchCoverImage(eq("album-456"), any())).thenAnswer(cover(coverBytes));
+
+        TestRestTemplate authenticated = restTemplate.withBasicAuth("testuser", "testpass");
+        HttpHeaders json = new HttpHeaders();
+        json.setContentType(MediaType.APPLICATION_JSON);
+        authenticated.postForEntity(BASE, new HttpEntity<>("{\"isrCode\":\"" + isrCode + "\"}", json), String.class);
+        String coverUrl = BASE + "/" + isrCode + "/cover";
+
+        ResponseEntity<byte[]> full = authenticated.getForEntity(coverUrl, byte[].class);
+        String eTag = full.getHeaders().getETag();
+        assertThat(full.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(eTag).isNotBlank();
+        assertThat(full.getHeaders().getCacheControl()).contains("max-age");
+
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(eTag);
+        ResponseEntity<byte[]> notModified = authenticated.exchange(
+                coverUrl, HttpMethod.GET, new HttpEntity<>(conditional), byte[].class);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+
+        int rounds = 50;
+        long fullNanos = 0;
+        long conditionalNanos = 0;
+        long fullBytes = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            fullBytes += authenticated.getForEntity(coverUrl, byte[].class).getBody().length;
+            fullNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            authenticated.exchange(coverUrl, HttpMethod.GET, new HttpEntity<>(conditional), byte[].class);
+            conditionalNanos += System.nanoTime() - start;
+        }
+        log.info("Cover GET x{}: full {} body bytes in {} ms, conditional 0 body bytes in {} ms",
+                rounds, fullBytes, fullNanos / 1_000_000, conditionalNanos / 1_000_000);
+        assertThat(fullBytes).isEqualTo((long) rounds * coverBytes.length);
+    }
+
+    @Test
+    @DisplayName("registration holds no database connection while it waits on the provider")
+    void providerCallsHoldNoConnection() throws SQLException {
+        String isrCode = "USMC18620551";
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        List<Integer> activeDuringProviderCalls = new CopyOnWriteArrayList<>();
+        when(musicProviderRepository.fetchMetadata(isrCode)).thenAnswer(invocation -> {
+            activeDuringProviderCalls.add(pool.getHikariPoolMXBean().getActiveConnections());
+            return Track.builder()
+                    .isrCode(isrCode)
+                    .name("Pooled Track")
+                    .artistName("Test Artist")
+                    .albumName("Pooled Album")
+                    .albumId("album-789")
+                    .isExplicit(false)
+                    .playbackSeconds(200L)
+                    .build();
+        });
+        when(musicProviderRepository.fetchCoverImage(eq("album-789"), any())).thenAnswer(invocation -> {
+            activeDuringProviderCalls.add(pool.getHikariPoolMXBean().getActiveConnections());
+            return cover(new byte[]{0x01}).answer(invocation);
+        });
+
+        HttpHeaders json = new HttpHeaders();
+        json.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> response = restTemplate.withBasicAuth("testuser", "testpass")
+                .postForEntity(BASE, new HttpEntity<>("{\"isrCode\":\"" + isrCode + "\"}", json), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(activeDuringProviderCalls).containsExactly(0, 0);
+    }
+
     @Test
     @DisplayName("get track without auth returns 401")
     void getTrackWithoutAuthReturns401() {
         ResponseEntity<String> response = restTemplate.getForEntity(BASE + "/" + ISRC, String.class);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
     }
+
+    /** Answers a cover download by handing the reader the canned image, as the provider does with the response. */
+    private static Answer<Object> cover(byte[] image) {
+        return invocation -> invocation.<Function<InputStream, Object>>getArgument(1)
+                .apply(new ByteArrayInputStream(image));
+    }
 }
@@ -0,0 +1,213 @@
+package com.fbaron.tracker;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test of {@code POST /api/v1/tracks} with Tomcat on platform threads versus virtual threads
+ * ({@code spring.threads.virtual.enabled}). The whole app runs against a local Spotify stub that adds latency
+ * to search and image download, so registration is dominated by blocking provider I/O. Client-side provider
+ * limits are lifted, leaving the request threads as the bottleneck in platform mode. Virtual threads that park
+ * while pinned to their carrier are recorded with JFR and reported per call site.
+ * Run with {@code ./gradlew benchmark}; excluded from {@code test}.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadBenchmark.class);
+    private static final String BASE = "/tracker/api/v1/tracks";
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Duration SEARCH_LATENCY = Duration.ofMillis(150);
+    private static final Duration IMAGE_LATENCY = Duration.ofMillis(100);
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+    private static final Duration MEASURE = Duration.ofSeconds(10);
+    private static final int CLIENTS = 200;
+    private static final int PLATFORM_MAX_THREADS = 50;
+    private static final byte[] COVER = new byte[16 * 1024];
+
+    @TempDir
+    Path workDir;
+
+    private final AtomicLong isrcSequence = new AtomicLong();
+    private SpotifyStubServer provider;
+
+    @BeforeEach
+    void startProvider() throws IOException {
+        provider = new SpotifyStubServer(SEARCH_LATENCY, IMAGE_LATENCY, COVER);
+    }
+
+    @AfterEach
+    void stopProvider() {
+        provider.close();
+    }
+
+    @Test
+    @DisplayName("registration throughput and p99 on platform versus virtual request threads")
+    void platformVersusVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        for (Result result : new Result[]{platform, virtual}) {
+            log.info("{}: clients={} requests={} errors={} throughput={} req/s p50={} ms p99={} ms pinned={}",
+                    result.mode(), CLIENTS, result.requests(), result.errors(), result.throughput(),
+                    result.p50Millis(), result.p99Millis(), result.pinned());
+            result.pinnedSites().entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(10)
+                    .forEach(site -> log.info("{}: pinned {}x at {}", result.mode(), site.getValue(), site.getKey()));
+        }
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+        assertThat(virtual.throughput()).isGreaterThan(platform.throughput());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .run(arguments(mode, virtualThreads));
+             HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             Recording pinning = new Recording()) {
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + BASE);
+            char prefix = virtualThreads ? 'V' : 'P';
+            drive(client, uri, prefix, WARM_UP);
+
+            pinning.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            pinning.start();
+            Load load = drive(client, uri, prefix, MEASURE);
+            pinning.stop();
+            Map<String, Long> pinnedSites = pinnedSites(pinning, workDir.resolve(mode + ".jfr"));
+
+            long[] latencies = load.latencies().stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Result(mode, latencies.length, load.errors().sum(),
+                    latencies.length * 1_000L / MEASURE.toMillis(),
+                    percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99),
+                    pinnedSites.values().stream().mapToLong(Long::longValue).sum(), pinnedSites);
+        }
+    }
+
+    private String[] arguments(String mode, boolean virtualThreads) {
+        return Stream.concat(Arrays.stream(provider.arguments()), Stream.of(
+                "--spring.profiles.active=test",
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + PLATFORM_MAX_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode
+                        + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--app.storage.location=" + workDir.resolve(mode),
+                "--app.provider.rate-limit.permits-per-second=100000",
+                "--app.provider.rate-limit.burst=100000",
+                "--app.provider.rate-limit.initial-concurrency=1000",
+                "--app.provider.rate-limit.max-concurrency=1000",
+                "--app.http-client.spotify.max-total=1000",
+                "--app.http-client.spotify.max-per-route=1000",
+                "--app.http-client.cdn.max-total=1000",
+                "--app.http-client.cdn.max-per-route=1000"
+        )).toArray(String[]::new);
+    }
+
+    /** Closed loop: every client registers a new ISRC as soon as its previous registration returns. */
+    private Load drive(HttpClient client, URI uri, char prefix, Duration duration) {
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString("testuser:testpass".getBytes(StandardCharsets.UTF_8));
+        Load load = new Load(new ConcurrentLinkedQueue<>(), new LongAdder());
+        long end = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        String isrc = "LT" + prefix + String.format("%09d", isrcSequence.incrementAndGet());
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .header("Authorization", authorization)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString("{\"isrCode\":\"" + isrc + "\"}"))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 201) {
+                                load.latencies().add(System.nanoTime() - start);
+                            } else {
+                                load.errors().increment();
+                            }
+                        } catch (IOException e) {
+                            load.errors().increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return load;
+    }
+
+    /** Pinned parks grouped by the innermost frame outside the JDK. */
+    private static Map<String, Long> pinnedSites(Recording recording, Path file) throws IOException {
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(PINNED_EVENT))
+                .collect(Collectors.groupingBy(VirtualThreadLoadBenchmark::pinnedSite, Collectors.counting()));
+    }
+
+    private static String pinnedSite(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "<no stack trace>";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .map(RecordedFrame::getMethod)
+                .filter(method -> !method.getType().getName().startsWith("java.")
+                        && !method.getType().getName().startsWith("jdk.")
+                        && !method.getType().getName().startsWith("sun."))
+                .findFirst()
+                .map(method -> method.getType().getName() + "." + method.getName())
+                .orElse("<jdk>");
+    }
+
+    private static long percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return Duration.ofNanos(sortedNanos[Math.max(index, 0)]).toMillis();
+    }
+
+    private record Load(Queue<Long> latencies, LongAdder errors) {
+    }
+
+    private record Result(String mode, long requests, long errors, long throughput, long p50Millis, long p99Millis,
+                          long pinned, Map<String, Long> pinnedSites) {
+    }
+}
@@ -25,6 +25,14 @@ class CoreExceptionTest {
             assertThat(ex).isInstanceOf(RuntimeException.class);
             assertThat(ex.getMessage()).isEqualTo(MESSAGE);
         }
+
+        @Test
+        @DisplayName("does not capture a stack trace")
+        void noStackTrace() {
+            TrackNotFoundException ex = new TrackNotFoundException(MESSAGE);
+
+            assertThat(ex.getStackTrace()).isEmpty();
+        }
     }
 
     @Nested
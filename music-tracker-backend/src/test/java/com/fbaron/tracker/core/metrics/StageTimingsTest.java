@@ -0,0 +1,69 @@
+package com.fbaron.tracker.core.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StageTimingsTest {
+
+    @AfterEach
+    void tearDown() {
+        StageTimings.clear();
+    }
+
+    @Test
+    @DisplayName("stages accumulate in first-run order")
+    void accumulatesPerStage() throws InterruptedException {
+        StageTimings timings = StageTimings.start();
+
+        timed("db", 5);
+        timed("provider-search", 5);
+        timed("db", 5);
+
+        Map<String, Long> stages = stages(timings);
+        assertThat(stages).containsOnlyKeys("db", "provider-search");
+        assertThat(stages.keySet()).containsExactly("db", "provider-search");
+        assertThat(stages.get("db")).isGreaterThanOrEqualTo(10_000_000L);
+        assertThat(timings.totalNanos()).isGreaterThanOrEqualTo(15_000_000L);
+    }
+
+    @Test
+    @DisplayName("a nested stage is not counted again in the outer one")
+    void nestedStagesAreExclusive() throws InterruptedException {
+        StageTimings timings = StageTimings.start();
+
+        long outer = StageTimings.enter();
+        timed("disk", 50);
+        StageTimings.exit("cover-dl", outer);
+
+        Map<String, Long> stages = stages(timings);
+        assertThat(stages.get("disk")).isGreaterThanOrEqualTo(50_000_000L);
+        assertThat(stages.get("cover-dl")).isLessThan(stages.get("disk"));
+    }
+
+    @Test
+    @DisplayName("nothing is recorded on a thread that did not start collecting")
+    void noopWithoutStart() {
+        long start = StageTimings.enter();
+        StageTimings.exit("db", start);
+
+        assertThat(StageTimings.current()).isNull();
+    }
+
+    private static void timed(String stage, long millis) throws InterruptedException {
+        long start = StageTimings.enter();
+        Thread.sleep(millis);
+        StageTimings.exit(stage, start);
+    }
+
+    private static Map<String, Long> stages(StageTimings timings) {
+        Map<String, Long> stages = new LinkedHashMap<>();
+        timings.forEach(stages::put);
+        return stages;
+    }
+}
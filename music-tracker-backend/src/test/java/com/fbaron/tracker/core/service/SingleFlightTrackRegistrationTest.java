@@ -0,0 +1,167 @@
+package com.fbaron.tracker.core.service;
+
+import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.RegistrationResult;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.FileStorageRepository;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import com.fbaron.tracker.core.repository.TrackCommandRepository;
+import com.fbaron.tracker.core.repository.TrackQueryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Concurrency tests for {@link SingleFlightTrackRegistration} on top of a {@link TrackService} with mocked ports. */
+@ExtendWith(MockitoExtension.class)
+class SingleFlightTrackRegistrationTest {
+
+    private static final String ISRC = "USMC18620549";
+    private static final String COVER_PATH = "/storage/USMC18620549.jpg";
+    private static final StagedCover STAGED = new StagedCover("album-123", "/storage/album-123-1.tmp", 3);
+    private static final int CALLERS = 16;
+
+    @Mock
+    private MusicProviderRepository musicProviderRepository;
+    @Mock
+    private TrackQueryRepository trackQueryRepository;
+    @Mock
+    private TrackCommandRepository trackCommandRepository;
+    @Mock
+    private FileStorageRepository fileStorageRepository;
+
+    private SingleFlightTrackRegistration registration;
+
+    @BeforeEach
+    void setUp() {
+        registration = new SingleFlightTrackRegistration(new TrackService(
+                trackQueryRepository,
+                musicProviderRepository,
+                fileStorageRepository,
+                trackCommandRepository));
+    }
+
+    @Test
+    @DisplayName("N parallel registrations of one ISRC cause exactly one provider fetch")
+    void parallelRegistrationsFetchOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+        when(musicProviderRepository.fetchMetadata(ISRC)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return track();
+        });
+        when(musicProviderRepository.fetchCoverImage(eq("album-123"), any())).thenAnswer(cover(new byte[]{1, 2, 3}));
+        when(fileStorageRepository.stageCover(eq("album-123"), any(InputStream.class))).thenReturn(STAGED);
+        when(fileStorageRepository.publishCover(STAGED)).thenReturn(COVER_PATH);
+        when(trackCommandRepository.insertIfAbsent(any(Track.class))).thenReturn(true);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<RegistrationResult>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> registration.register(ISRC)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registration.getCoalescedCount() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            int saved = 0;
+            for (Future<RegistrationResult> result : results) {
+                RegistrationResult r = result.get(5, TimeUnit.SECONDS);
+                assertThat(r.track().getCoverPath()).isEqualTo(COVER_PATH);
+                saved += r.saved() ? 1 : 0;
+            }
+            assertThat(saved).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(musicProviderRepository, times(1)).fetchMetadata(ISRC);
+        verify(fileStorageRepository, times(1)).publishCover(STAGED);
+        verify(trackCommandRepository, times(1)).insertIfAbsent(any(Track.class));
+        assertThat(registration.getLedCount()).isEqualTo(1);
+        assertThat(registration.getInFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("followers receive the leader's failure and the next call starts a new flight")
+    void followersSeeLeaderFailure() throws Exception {
+        TrackNotFoundException failure = new TrackNotFoundException("Track not found with IRSC: " + ISRC);
+        CountDownLatch release = new CountDownLatch(1);
+        when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+        when(musicProviderRepository.fetchMetadata(ISRC)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw failure;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<RegistrationResult> leader = pool.submit(() -> registration.register(ISRC));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registration.getInFlightCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            Future<RegistrationResult> follower = pool.submit(() -> registration.register(ISRC));
+            while (registration.getCoalescedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(registration.getCoalescedCount()).isEqualTo(1);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseReference(failure);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseReference(failure);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(registration.getLedCount()).isEqualTo(1);
+        assertThat(registration.getInFlightCount()).isZero();
+
+        assertThatThrownBy(() -> registration.register(ISRC)).isSameAs(failure);
+        assertThat(registration.getLedCount()).isEqualTo(2);
+        verify(musicProviderRepository, times(2)).fetchMetadata(ISRC);
+    }
+
+    private static Track track() {
+        return Track.builder()
+                .isrCode(ISRC)
+                .name("Track Name")
+                .artistName("Artist")
+                .albumName("Album")
+                .albumId("album-123")
+                .isExplicit(false)
+                .playbackSeconds(180L)
+                .build();
+    }
+
+    /** Answers a cover download by handing the reader an in-memory image, as the provider does with the response. */
+    private static Answer<Object> cover(byte[] image) {
+        return invocation -> invocation.<Function<InputStream, Object>>getArgument(1)
+                .apply(new ByteArrayInputStream(image));
+    }
+}
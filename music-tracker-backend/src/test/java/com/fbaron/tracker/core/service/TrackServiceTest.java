@@ -1,12 +1,17 @@
 package com.fbaron.tracker.core.service;
 
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.CoverSize;
 import com.fbaron.tracker.core.model.RegistrationResult;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.StoredCover;
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.core.repository.FileStorageRepository;
 import com.fbaron.tracker.core.repository.MusicProviderRepository;
 import com.fbaron.tracker.core.repository.TrackCommandRepository;
 import com.fbaron.tracker.core.repository.TrackQueryRepository;
+import com.fbaron.tracker.data.storage.ByteBufferCoverImage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -14,8 +19,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -31,6 +42,9 @@ class TrackServiceTest {
 
     private static final String ISRC = "USMC18620549";
     private static final String COVER_PATH = "/storage/USMC18620549.jpg";
+    private static final String COVER_URL = "https://i.scdn.co/image/cover";
+    private static final String ALBUM_ID = "album-123";
+    private static final StagedCover STAGED = new StagedCover(ALBUM_ID, "/storage/album-123-1.tmp", 3);
 
     @Mock
     private MusicProviderRepository musicProviderRepository;
@@ -77,18 +91,123 @@ class TrackServiceTest {
             Track fromProvider = track(ISRC);
             fromProvider.setCoverPath(null);
             when(musicProviderRepository.fetchMetadata(ISRC)).thenReturn(fromProvider);
-            when(musicProviderRepository.fetchCoverImage(fromProvider.getAlbumId())).thenReturn(new byte[]{1, 2, 3});
-            when(fileStorageRepository.saveToDisk(eq(ISRC), any(byte[].class))).thenReturn(COVER_PATH);
-            Track savedTrack = track(ISRC);
-            savedTrack.setCoverPath(COVER_PATH);
-            when(trackCommandRepository.save(any(Track.class))).thenReturn(savedTrack);
+            when(musicProviderRepository.fetchCoverImage(eq(ALBUM_ID), any())).thenAnswer(cover(new byte[]{1, 2, 3}));
+            when(fileStorageRepository.stageCover(eq(ALBUM_ID), any(InputStream.class))).thenReturn(STAGED);
+            when(fileStorageRepository.publishCover(STAGED)).thenReturn(COVER_PATH);
+            when(trackCommandRepository.insertIfAbsent(any(Track.class))).thenReturn(true);
 
             RegistrationResult result = trackService.register(ISRC);
 
             assertThat(result.saved()).isTrue();
             assertThat(result.track().getCoverPath()).isEqualTo(COVER_PATH);
-            verify(fileStorageRepository).saveToDisk(eq(ISRC), any(byte[].class));
-            verify(trackCommandRepository).save(any(Track.class));
+            verify(fileStorageRepository).publishCover(STAGED);
+            verify(trackCommandRepository).insertIfAbsent(any(Track.class));
+        }
+
+        @Test
+        @DisplayName("only stages the cover during the provider call and publishes it once the call returned")
+        void publishesCoverAfterProviderCall() {
+            when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+            Track fromProvider = track(ISRC);
+            fromProvider.setCoverUrl(COVER_URL);
+            when(musicProviderRepository.fetchMetadata(ISRC)).thenReturn(fromProvider);
+            when(musicProviderRepository.downloadCoverImage(eq(COVER_URL), any())).thenAnswer(invocation -> {
+                Object staged = cover(new byte[]{1, 2, 3}).answer(invocation);
+                verify(fileStorageRepository, never()).publishCover(any());
+                return staged;
+            });
+            when(fileStorageRepository.stageCover(eq(ALBUM_ID), any(InputStream.class))).thenReturn(STAGED);
+            when(fileStorageRepository.publishCover(STAGED)).thenReturn(COVER_PATH);
+            when(trackCommandRepository.insertIfAbsent(any(Track.class))).thenReturn(true);
+
+            RegistrationResult result = trackService.register(ISRC);
+
+            assertThat(result.track().getCoverPath()).isEqualTo(COVER_PATH);
+            verify(fileStorageRepository).publishCover(STAGED);
+        }
+
+        @Test
+        @DisplayName("returns the stored track with saved=false when a concurrent registration inserted it first")
+        void returnsStoredTrackWhenInsertLosesRace() {
+            Track stored = track(ISRC);
+            when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty()).thenReturn(Optional.of(stored));
+            Track fromProvider = track(ISRC);
+            fromProvider.setCoverPath(null);
+            when(musicProviderRepository.fetchMetadata(ISRC)).thenReturn(fromProvider);
+            when(musicProviderRepository.fetchCoverImage(eq(ALBUM_ID), any())).thenAnswer(cover(new byte[]{1, 2, 3}));
+            when(fileStorageRepository.stageCover(eq(ALBUM_ID), any(InputStream.class))).thenReturn(STAGED);
+            when(fileStorageRepository.publishCover(STAGED)).thenReturn(COVER_PATH);
+            when(trackCommandRepository.insertIfAbsent(any(Track.class))).thenReturn(false);
+
+            RegistrationResult result = trackService.register(ISRC);
+
+            assertThat(result.saved()).isFalse();
+            assertThat(result.track()).isSameAs(stored);
+        }
+
+        @Test
+        @DisplayName("downloads the cover from the search result URL without the album lookup")
+        void downloadsCoverFromSearchResultUrl() {
+            when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+            Track fromProvider = track(ISRC);
+            fromProvider.setCoverPath(null);
+            fromProvider.setCoverUrl(COVER_URL);
+            when(musicProviderRepository.fetchMetadata(ISRC)).thenReturn(fromProvider);
+            when(musicProviderRepository.downloadCoverImage(eq(COVER_URL), any())).thenAnswer(cover(new byte[]{1, 2, 3}));
+            when(fileStorageRepository.stageCover(eq(ALBUM_ID), any(InputStream.class))).thenReturn(STAGED);
+            when(fileStorageRepository.publishCover(STAGED)).thenReturn(COVER_PATH);
+            when(trackCommandRepository.insertIfAbsent(any(Track.class))).thenReturn(true);
+
+            RegistrationResult result = trackService.register(ISRC);
+
+            assertThat(result.saved()).isTrue();
+            assertThat(result.track().getCoverPath()).isEqualTo(COVER_PATH);
+            verify(musicProviderRepository).downloadCoverImage(eq(COVER_URL), any());
+            verify(musicProviderRepository, never()).fetchCoverImage(any(), any());
+        }
+
+        @Test
+        @DisplayName("reuses the album's stored cover without downloading or writing it again")
+        void reusesStoredAlbumCover() {
+            when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+            Track fromProvider = track(ISRC);
+            fromProvider.setCoverPath(null);
+            fromProvider.setCoverUrl(COVER_URL);
+            when(musicProviderRepository.fetchMetadata(ISRC)).thenReturn(fromProvider);
+            when(trackQueryRepository.findCoverPathByAlbumId(ALBUM_ID)).thenReturn(Optional.of(COVER_PATH));
+            when(fileStorageRepository.sizeOf(COVER_PATH)).thenReturn(OptionalLong.of(2048));
+            when(trackCommandRepository.insertIfAbsent(any(Track.class))).thenReturn(true);
+
+            RegistrationResult result = trackService.register(ISRC);
+
+            assertThat(result.saved()).isTrue();
+            assertThat(result.track().getCoverPath()).isEqualTo(COVER_PATH);
+            verify(musicProviderRepository, never()).downloadCoverImage(any(), any());
+            verify(fileStorageRepository, never()).stageCover(any(), any(InputStream.class));
+            assertThat(trackService.getCoversReused()).isEqualTo(1);
+            assertThat(trackService.getCoverBytesReused()).isEqualTo(2048);
+        }
+
+        @Test
+        @DisplayName("downloads the cover again when the album's stored file is gone")
+        void downloadsWhenStoredAlbumCoverMissing() {
+            when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+            Track fromProvider = track(ISRC);
+            fromProvider.setCoverPath(null);
+            fromProvider.setCoverUrl(COVER_URL);
+            when(musicProviderRepository.fetchMetadata(ISRC)).thenReturn(fromProvider);
+            when(trackQueryRepository.findCoverPathByAlbumId(ALBUM_ID)).thenReturn(Optional.of(COVER_PATH));
+            when(fileStorageRepository.sizeOf(COVER_PATH)).thenReturn(OptionalLong.empty());
+            when(musicProviderRepository.downloadCoverImage(eq(COVER_URL), any())).thenAnswer(cover(new byte[]{1, 2, 3}));
+            when(fileStorageRepository.stageCover(eq(ALBUM_ID), any(InputStream.class))).thenReturn(STAGED);
+            when(fileStorageRepository.publishCover(STAGED)).thenReturn(COVER_PATH);
+            when(trackCommandRepository.insertIfAbsent(any(Track.class))).thenReturn(true);
+
+            RegistrationResult result = trackService.register(ISRC);
+
+            assertThat(result.track().getCoverPath()).isEqualTo(COVER_PATH);
+            verify(fileStorageRepository).publishCover(STAGED);
+            assertThat(trackService.getCoversReused()).isZero();
         }
     }
 
@@ -119,22 +238,37 @@ class TrackServiceTest {
     }
 
     @Nested
-    @DisplayName("getCoverImage")
-    class GetCoverImage {
+    @DisplayName("findCover")
+    class FindCover {
 
         @Test
-        @DisplayName("returns image bytes when track exists")
-        void returnsImageWhenTrackExists() {
+        @DisplayName("stats the cover without reading it when track exists")
+        void statsCoverWhenTrackExists() {
             Track track = track(ISRC);
             track.setCoverPath(COVER_PATH);
             when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.of(track));
-            byte[] imageBytes = new byte[]{1, 2, 3};
-            when(fileStorageRepository.readFromDisk(COVER_PATH)).thenReturn(imageBytes);
+            StoredCover cover = new StoredCover(COVER_PATH, 3, 0L);
+            when(fileStorageRepository.coverVariant(COVER_PATH, CoverSize.ORIGINAL)).thenReturn(COVER_PATH);
+            when(fileStorageRepository.statCover(COVER_PATH)).thenReturn(cover);
 
-            byte[] result = trackService.getCoverImage(ISRC);
+            StoredCover result = trackService.findCover(ISRC, CoverSize.ORIGINAL);
 
-            assertThat(result).isEqualTo(imageBytes);
-            verify(fileStorageRepository).readFromDisk(COVER_PATH);
+            assertThat(result).isSameAs(cover);
+            verify(fileStorageRepository, never()).readCover(any());
+        }
+
+        @Test
+        @DisplayName("stats the variant file of the requested size")
+        void statsSizeVariant() {
+            String smallPath = "/storage/album-123.small.jpg";
+            when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.of(track(ISRC)));
+            StoredCover cover = new StoredCover(smallPath, 1, 0L);
+            when(fileStorageRepository.coverVariant(COVER_PATH, CoverSize.SMALL)).thenReturn(smallPath);
+            when(fileStorageRepository.statCover(smallPath)).thenReturn(cover);
+
+            StoredCover result = trackService.findCover(ISRC, CoverSize.SMALL);
+
+            assertThat(result).isSameAs(cover);
         }
 
         @Test
@@ -142,11 +276,27 @@ class TrackServiceTest {
         void throwsWhenTrackNotFound() {
             when(trackQueryRepository.findByIsrCode(ISRC)).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> trackService.getCoverImage(ISRC))
+            assertThatThrownBy(() -> trackService.findCover(ISRC, CoverSize.ORIGINAL))
                     .isInstanceOf(TrackNotFoundException.class);
         }
     }
 
+    @Nested
+    @DisplayName("getCoverImage")
+    class GetCoverImage {
+
+        @Test
+        @DisplayName("reads the cover at the stored path")
+        void readsStoredPath() {
+            CoverImage coverImage = new ByteBufferCoverImage(ByteBuffer.wrap(new byte[]{1, 2, 3}), 0L);
+            when(fileStorageRepository.readCover(COVER_PATH)).thenReturn(coverImage);
+
+            CoverImage result = trackService.getCoverImage(new StoredCover(COVER_PATH, 3, 0L));
+
+            assertThat(result).isSameAs(coverImage);
+        }
+    }
+
     private static Track track(String isrCode) {
         return Track.builder()
                 .isrCode(isrCode)
@@ -159,4 +309,10 @@ class TrackServiceTest {
                 .coverPath(COVER_PATH)
                 .build();
     }
+
+    /** Answers a cover download by handing the reader an in-memory image, as the provider does with the response. */
+    private static Answer<Object> cover(byte[] image) {
+        return invocation -> invocation.<Function<InputStream, Object>>getArgument(1)
+                .apply(new ByteArrayInputStream(image));
+    }
 }
@@ -0,0 +1,198 @@
+package com.fbaron.tracker.data.cache;
+
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.TrackCommandRepository;
+import com.fbaron.tracker.core.repository.TrackQueryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link CachingTrackRepository} with mocked delegate ports. */
+@ExtendWith(MockitoExtension.class)
+class CachingTrackRepositoryTest {
+
+    private static final String ISRC = "USMC18620549";
+
+    @Mock
+    private TrackQueryRepository queryDelegate;
+    @Mock
+    private TrackCommandRepository commandDelegate;
+
+    private CachingTrackRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingTrackRepository(queryDelegate, commandDelegate, 1024 * 1024, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("second lookup is served from the cache")
+    void secondLookupIsAHit() {
+        when(queryDelegate.findByIsrCode(ISRC)).thenReturn(Optional.of(track(ISRC)));
+
+        assertThat(repository.findByIsrCode(ISRC)).contains(track(ISRC));
+        assertThat(repository.findByIsrCode(ISRC)).contains(track(ISRC));
+
+        verify(queryDelegate, times(1)).findByIsrCode(ISRC);
+    }
+
+    @Test
+    @DisplayName("repeated misses are answered from the negative cache")
+    void missesAreNegativeCached() {
+        when(queryDelegate.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        repository.bindTo(registry);
+
+        assertThat(repository.findByIsrCode(ISRC)).isEmpty();
+        assertThat(repository.findByIsrCode(ISRC)).isEmpty();
+        assertThat(repository.findByIsrCode(ISRC)).isEmpty();
+
+        verify(queryDelegate, times(1)).findByIsrCode(ISRC);
+        assertThat(registry.get("tracks.negative.cache.hits").tag("source", "database")
+                .functionCounter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("negative entries expire after the TTL")
+    void negativeEntriesExpire() {
+        repository = new CachingTrackRepository(queryDelegate, commandDelegate, 1024 * 1024, Duration.ZERO);
+        when(queryDelegate.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+
+        repository.findByIsrCode(ISRC);
+        repository.findByIsrCode(ISRC);
+
+        verify(queryDelegate, times(2)).findByIsrCode(ISRC);
+    }
+
+    @Test
+    @DisplayName("save replaces a negative entry")
+    void saveClearsNegativeEntry() {
+        Track track = track(ISRC);
+        when(queryDelegate.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+        when(commandDelegate.save(track)).thenReturn(track);
+
+        assertThat(repository.findByIsrCode(ISRC)).isEmpty();
+        repository.save(track);
+
+        assertThat(repository.findByIsrCode(ISRC)).contains(track);
+        verify(queryDelegate, times(1)).findByIsrCode(ISRC);
+    }
+
+    @Test
+    @DisplayName("save populates the cache")
+    void savePopulatesCache() {
+        Track track = track(ISRC);
+        when(commandDelegate.save(track)).thenReturn(track);
+
+        repository.save(track);
+
+        assertThat(repository.findByIsrCode(ISRC)).contains(track);
+        verify(queryDelegate, never()).findByIsrCode(ISRC);
+    }
+
+    @Test
+    @DisplayName("an insert populates the cache; a lost insert clears the negative entry without caching")
+    void insertIfAbsentUpdatesCache() {
+        Track track = track(ISRC);
+        Track other = track("GBAYE0601498");
+        when(queryDelegate.findByIsrCode(ISRC)).thenReturn(Optional.empty());
+        when(commandDelegate.insertIfAbsent(track)).thenReturn(true);
+        when(commandDelegate.insertIfAbsent(other)).thenReturn(false);
+        when(queryDelegate.findByIsrCode("GBAYE0601498")).thenReturn(Optional.empty()).thenReturn(Optional.of(other));
+
+        assertThat(repository.findByIsrCode(ISRC)).isEmpty();
+        assertThat(repository.insertIfAbsent(track)).isTrue();
+        assertThat(repository.findByIsrCode(ISRC)).contains(track);
+
+        assertThat(repository.findByIsrCode("GBAYE0601498")).isEmpty();
+        assertThat(repository.insertIfAbsent(other)).isFalse();
+        assertThat(repository.findByIsrCode("GBAYE0601498")).contains(other);
+        verify(queryDelegate, times(1)).findByIsrCode(ISRC);
+    }
+
+    @Test
+    @DisplayName("callers cannot mutate the cached instance")
+    void returnsCopies() {
+        when(queryDelegate.findByIsrCode(ISRC)).thenReturn(Optional.of(track(ISRC)));
+
+        repository.findByIsrCode(ISRC).orElseThrow().setName("changed");
+
+        assertThat(repository.findByIsrCode(ISRC).orElseThrow().getName()).isEqualTo("Track Name");
+    }
+
+    @Test
+    @DisplayName("concurrent misses for one ISRC share a single load")
+    void concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(queryDelegate.findByIsrCode(ISRC)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(track(ISRC));
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<Track>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> repository.findByIsrCode(ISRC)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Optional<Track>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isPresent();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(queryDelegate, times(1)).findByIsrCode(ISRC);
+    }
+
+    @Test
+    @DisplayName("publishes hit and miss counts")
+    void publishesStats() {
+        when(queryDelegate.findByIsrCode(ISRC)).thenReturn(Optional.of(track(ISRC)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        repository.bindTo(registry);
+
+        repository.findByIsrCode(ISRC);
+        repository.findByIsrCode(ISRC);
+
+        assertThat(registry.get("cache.gets").tag("cache", "tracks").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tag("cache", "tracks").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private static Track track(String isrCode) {
+        return Track.builder()
+                .isrCode(isrCode)
+                .name("Track Name")
+                .artistName("Artist")
+                .albumName("Album")
+                .albumId("album-123")
+                .isExplicit(false)
+                .playbackSeconds(180L)
+                .coverPath("/storage/album-123.jpg")
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.fbaron.tracker.data.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Unit tests for {@link CoalescedLoad}. */
+class CoalescedLoadTest {
+
+    @TempDir
+    Path recordings;
+
+    private final AsyncCache<String, String> cache = Caffeine.newBuilder().recordStats().buildAsync();
+
+    @Test
+    @DisplayName("loads once and serves the cached value afterwards")
+    void cachesLoadedValue() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(CoalescedLoad.get(cache, "key", key -> key + "-" + loads.incrementAndGet())).isEqualTo("key-1");
+        assertThat(CoalescedLoad.get(cache, "key", key -> key + "-" + loads.incrementAndGet())).isEqualTo("key-1");
+
+        assertThat(cache.synchronous().stats().hitCount()).isEqualTo(1);
+        assertThat(cache.synchronous().stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("null and failed loads are not cached")
+    void nothingCachedOnNullOrFailure() {
+        assertThat(CoalescedLoad.get(cache, "key", key -> null)).isNull();
+        assertThatThrownBy(() -> CoalescedLoad.get(cache, "key", key -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+        assertThat(CoalescedLoad.get(cache, "key", key -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    @DisplayName("a virtual thread blocking in the loader is not pinned to its carrier")
+    void loaderDoesNotPin() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.start();
+
+            Thread.ofVirtual().start(() -> CoalescedLoad.get(cache, "key", key -> {
+                sleep(Duration.ofMillis(50));
+                return "value";
+            })).join();
+
+            recording.stop();
+            assertThat(pinnedEvents(recording)).isZero();
+        }
+    }
+
+    private long pinnedEvents(Recording recording) throws IOException {
+        Path file = recordings.resolve("pinning.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .count();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
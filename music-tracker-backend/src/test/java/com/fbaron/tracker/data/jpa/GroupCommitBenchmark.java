@@ -0,0 +1,161 @@
+package com.fbaron.tracker.data.jpa;
+
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.TrackCommandRepository;
+import com.fbaron.tracker.data.jpa.mapper.TrackJpaMapperImpl;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Track inserts from many threads: one transaction per insert against {@link GroupCommitTrackRepository}. H2 keeps
+ * commits in memory, so every commit sleeps {@link #COMMIT_LATENCY} to stand in for a durable WAL flush. Run with
+ * {@code ./gradlew benchmark}; excluded from {@code test}.
+ */
+@Tag("benchmark")
+class GroupCommitBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitBenchmark.class);
+    private static final Duration COMMIT_LATENCY = Duration.ofMillis(1);
+    private static final Duration MEASURE = Duration.ofSeconds(5);
+    private static final int THREADS = 64;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder commits = new LongAdder();
+
+    @Test
+    @DisplayName("group commit cuts commits per insert and raises insert throughput")
+    void insertThroughput() throws Exception {
+        try (HikariDataSource dataSource = dataSource()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate transactionTemplate =
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            jdbcTemplate.execute("""
+                    create table tracks (
+                        isr_code varchar(20) primary key,
+                        name varchar(50) not null,
+                        artist_name varchar(50) not null,
+                        album_name varchar(50) not null,
+                        album_id varchar(100) not null,
+                        is_explicit boolean default false,
+                        playback_seconds bigint not null,
+                        cover_path varchar(512))""");
+
+            Result perInsert = run(track -> transactionTemplate.execute(status ->
+                    jdbcTemplate.update(GroupCommitTrackRepository.INSERT_SQL, track.getIsrCode(), track.getName(),
+                            track.getArtistName(), track.getAlbumName(), track.getAlbumId(), track.isExplicit(),
+                            track.getPlaybackSeconds(), track.getCoverPath()) == 1));
+
+            Result grouped;
+            try (GroupCommitTrackRepository repository = new GroupCommitTrackRepository(
+                    mock(TrackCommandRepository.class), new TrackJpaMapperImpl(), jdbcTemplate, transactionTemplate,
+                    100, Duration.ofMillis(2), Duration.ofSeconds(10))) {
+                grouped = run(repository::insertIfAbsent);
+            }
+
+            log.info("threads={} commit-latency={}ms", THREADS, COMMIT_LATENCY.toMillis());
+            log.info("per-insert commit: {} inserts/s, {} commits/s", perInsert.insertsPerSecond(),
+                    perInsert.commitsPerSecond());
+            log.info("group commit:      {} inserts/s, {} commits/s ({} rows per commit)",
+                    grouped.insertsPerSecond(), grouped.commitsPerSecond(),
+                    grouped.inserts() / Math.max(1, grouped.commits()));
+            assertThat(grouped.commits()).isLessThan(grouped.inserts());
+            assertThat(grouped.insertsPerSecond()).isGreaterThan(perInsert.insertsPerSecond());
+        }
+    }
+
+    private Result run(Predicate<Track> insert) throws InterruptedException {
+        LongAdder inserts = new LongAdder();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long commitsBefore = commits.sum();
+        long end = System.nanoTime() + MEASURE.toNanos();
+        for (int i = 0; i < THREADS; i++) {
+            Thread.ofPlatform().start(() -> {
+                while (System.nanoTime() < end) {
+                    if (insert.test(track("QZBEN%07d".formatted(sequence.incrementAndGet())))) {
+                        inserts.increment();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        return new Result(inserts.sum(), commits.sum() - commitsBefore);
+    }
+
+    private HikariDataSource dataSource() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:group-commit-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(new DelegatingDataSource(h2) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return slowCommits(super.getConnection());
+            }
+        });
+        config.setMaximumPoolSize(THREADS);
+        return new HikariDataSource(config);
+    }
+
+    /** Wraps a connection so each commit takes {@link #COMMIT_LATENCY} and is counted. */
+    private Connection slowCommits(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("commit")) {
+                        Thread.sleep(COMMIT_LATENCY);
+                        commits.increment();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static Track track(String isrCode) {
+        return Track.builder()
+                .isrCode(isrCode)
+                .name("Track " + isrCode)
+                .artistName("Artist")
+                .albumName("Album")
+                .albumId("album-123")
+                .isExplicit(false)
+                .playbackSeconds(180L)
+                .coverPath("/storage/album-123.jpg")
+                .build();
+    }
+
+    private record Result(long inserts, long commits) {
+
+        long insertsPerSecond() {
+            return inserts * 1_000 / MEASURE.toMillis();
+        }
+
+        long commitsPerSecond() {
+            return commits * 1_000 / MEASURE.toMillis();
+        }
+    }
+}
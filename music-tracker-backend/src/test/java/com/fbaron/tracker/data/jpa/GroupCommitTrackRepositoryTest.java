@@ -0,0 +1,228 @@
+package com.fbaron.tracker.data.jpa;
+
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.TrackCommandRepository;
+import com.fbaron.tracker.data.jpa.mapper.TrackJpaMapperImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link GroupCommitTrackRepository} against the test database (H2 in PostgreSQL mode, schema from Flyway).
+ * Not transactional: the flusher thread commits on its own.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GroupCommitTrackRepositoryTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(200);
+    private static final Duration COMMIT_TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private GroupCommitTrackRepository repository;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        repository.close();
+        new JdbcTemplate(dataSource).update("delete from tracks where isr_code like 'QZGC%'");
+    }
+
+    @Test
+    @DisplayName("concurrent inserts within the window share one batch and one commit")
+    void concurrentInsertsShareOneCommit() throws Exception {
+        repository = repository(100, WINDOW);
+
+        List<Boolean> results = insertConcurrently(isrCodes(16));
+
+        assertThat(results).hasSize(16).containsOnly(true);
+        assertThat(repository.getRowCount()).isEqualTo(16);
+        assertThat(repository.getCommitCount()).isLessThanOrEqualTo(2);
+        assertThat(count()).isEqualTo(16);
+    }
+
+    @Test
+    @DisplayName("a batch is flushed once it reaches the maximum size")
+    void batchSizeIsBounded() throws Exception {
+        repository = repository(4, WINDOW);
+
+        insertConcurrently(isrCodes(10));
+
+        assertThat(repository.getCommitCount()).isGreaterThanOrEqualTo(3);
+        assertThat(count()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("each caller gets its own outcome, also for the same ISRC twice in one batch")
+    void duplicatesInOneBatch() throws Exception {
+        repository = repository(100, WINDOW);
+
+        List<Boolean> results = insertConcurrently(List.of("QZGC00000001", "QZGC00000001", "QZGC00000002"));
+
+        assertThat(results).containsExactlyInAnyOrder(true, false, true);
+        assertThat(repository.insertIfAbsent(track("QZGC00000002", "Again"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("a row the database rejects fails only its own caller")
+    void badRowFailsAlone() throws Exception {
+        repository = repository(100, WINDOW);
+        String tooLong = "x".repeat(200);
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<Boolean> first = pool.submit(() -> repository.insertIfAbsent(track("QZGC00000001", "Fine")));
+            Future<Boolean> bad = pool.submit(() -> repository.insertIfAbsent(track("QZGC00000002", tooLong)));
+            Future<Boolean> third = pool.submit(() -> repository.insertIfAbsent(track("QZGC00000003", "Fine")));
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(third.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(catchCause(bad)).isInstanceOf(DataAccessException.class);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("a caller whose batch does not commit in time gets a timeout instead of waiting forever")
+    void commitTimeoutIsBounded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        JdbcTemplate stuck = mock(JdbcTemplate.class);
+        when(stuck.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new int[]{1};
+        });
+        repository = new GroupCommitTrackRepository(mock(TrackCommandRepository.class), new TrackJpaMapperImpl(),
+                stuck, new TransactionTemplate(transactionManager), 100, Duration.ofMillis(1), Duration.ofMillis(200));
+        try {
+            assertThatThrownBy(() -> repository.insertIfAbsent(track("QZGC00000001", "Stuck")))
+                    .isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("an error thrown while flushing fails the batch's callers and the flusher keeps running")
+    void flushErrorFailsCallers() {
+        JdbcTemplate broken = mock(JdbcTemplate.class);
+        when(broken.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new AssertionError("flusher bug"))
+                .thenReturn(new int[]{1});
+        repository = new GroupCommitTrackRepository(mock(TrackCommandRepository.class), new TrackJpaMapperImpl(),
+                broken, new TransactionTemplate(transactionManager), 100, Duration.ofMillis(1), COMMIT_TIMEOUT);
+
+        assertThatThrownBy(() -> repository.insertIfAbsent(track("QZGC00000001", "Broken")))
+                .isInstanceOf(TransientDataAccessResourceException.class)
+                .hasCauseInstanceOf(AssertionError.class);
+        assertThat(repository.insertIfAbsent(track("QZGC00000002", "Fine"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("inserts after close fail at once")
+    void insertAfterCloseFails() throws InterruptedException {
+        repository = repository(100, WINDOW);
+        repository.close();
+
+        assertThatThrownBy(() -> repository.insertIfAbsent(track("QZGC00000001", "Late")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private GroupCommitTrackRepository repository(int maxBatchSize, Duration maxDelay) {
+        return new GroupCommitTrackRepository(mock(TrackCommandRepository.class), new TrackJpaMapperImpl(),
+                new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager), maxBatchSize, maxDelay,
+                COMMIT_TIMEOUT);
+    }
+
+    private List<Boolean> insertConcurrently(List<String> isrCodes) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(isrCodes.size());
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (String isrCode : isrCodes) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return repository.insertIfAbsent(track(isrCode, "Track " + isrCode));
+                }));
+            }
+            start.countDown();
+            List<Boolean> results = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long count() {
+        return new JdbcTemplate(dataSource).queryForObject(
+                "select count(*) from tracks where isr_code like 'QZGC%'", Long.class);
+    }
+
+    private static Throwable catchCause(Future<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static List<String> isrCodes(int count) {
+        List<String> isrCodes = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            isrCodes.add("QZGC%08d".formatted(i));
+        }
+        return isrCodes;
+    }
+
+    private static Track track(String isrCode, String name) {
+        return Track.builder()
+                .isrCode(isrCode)
+                .name(name)
+                .artistName("Artist")
+                .albumName("Album")
+                .albumId("album-123")
+                .isExplicit(false)
+                .playbackSeconds(180L)
+                .coverPath("/storage/album-123.jpg")
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.fbaron.tracker.data.jpa;
+
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.data.jpa.mapper.TrackJpaMapperImpl;
+import com.fbaron.tracker.data.jpa.repository.TrackJpaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests {@link TrackJpaAdapter} against the test database (H2 in PostgreSQL mode, schema from Flyway).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TrackJpaAdapter.class, TrackJpaMapperImpl.class})
+class TrackJpaAdapterTest {
+
+    @Autowired
+    private TrackJpaAdapter adapter;
+    @Autowired
+    private TrackJpaRepository repository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("insertIfAbsent stores a new track with a single statement")
+    void insertsWithOneStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(adapter.insertIfAbsent(track("QZJPA2600001", "First"))).isTrue();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(adapter.findByIsrCode("QZJPA2600001")).get()
+                .extracting(Track::getName, Track::getCoverPath)
+                .containsExactly("First", "/storage/album-123.jpg");
+    }
+
+    @Test
+    @DisplayName("findByIsrCode reads a projection without loading a managed entity")
+    void findsWithoutManagedEntity() {
+        adapter.insertIfAbsent(track("QZJPA2600004", "Projected"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(adapter.findByIsrCode("QZJPA2600004")).get()
+                .extracting(Track::getIsrCode, Track::getName, Track::getArtistName, Track::getAlbumName,
+                        Track::getAlbumId, Track::isExplicit, Track::getPlaybackSeconds, Track::getCoverPath)
+                .containsExactly("QZJPA2600004", "Projected", "Artist", "Album", "album-123", true, 180L,
+                        "/storage/album-123.jpg");
+        assertThat(adapter.findByIsrCode("QZJPA2600099")).isEmpty();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("insertIfAbsent leaves an existing track untouched and reports it")
+    void keepsExistingTrack() {
+        adapter.insertIfAbsent(track("QZJPA2600002", "First"));
+
+        assertThat(adapter.insertIfAbsent(track("QZJPA2600002", "Second"))).isFalse();
+
+        assertThat(adapter.findByIsrCode("QZJPA2600002")).get().extracting(Track::getName).isEqualTo("First");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("exactly one of many concurrent inserts of an ISRC wins")
+    void concurrentInsertsHaveOneWinner() throws Exception {
+        String isrCode = "QZJPA2600003";
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String name = "Caller " + i;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return adapter.insertIfAbsent(track(isrCode, name));
+                }));
+            }
+            start.countDown();
+            int inserted = 0;
+            for (Future<Boolean> result : results) {
+                inserted += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(inserted).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+            repository.deleteById(isrCode);
+        }
+    }
+
+    private static Track track(String isrCode, String name) {
+        return Track.builder()
+                .isrCode(isrCode)
+                .name(name)
+                .artistName("Artist")
+                .albumName("Album")
+                .albumId("album-123")
+                .isExplicit(true)
+                .playbackSeconds(180L)
+                .coverPath("/storage/album-123.jpg")
+                .build();
+    }
+}
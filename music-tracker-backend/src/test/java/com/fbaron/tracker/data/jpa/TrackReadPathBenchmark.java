@@ -0,0 +1,102 @@
+package com.fbaron.tracker.data.jpa;
+
+import com.fbaron.tracker.data.jpa.mapper.TrackJpaMapper;
+import com.fbaron.tracker.data.jpa.mapper.TrackJpaMapperImpl;
+import com.fbaron.tracker.data.jpa.repository.TrackJpaRepository;
+import com.fbaron.tracker.web.dto.TrackDto;
+import com.fbaron.tracker.web.mapper.TrackDtoMapper;
+import com.fbaron.tracker.web.mapper.TrackDtoMapperImpl;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation and time per metadata read, from the database row to the {@link TrackDto}: the former path (managed
+ * {@code TrackJpaEntity} via {@code findById}, then {@code Track}, then the DTO) against the {@link
+ * com.fbaron.tracker.data.jpa.projection.TrackRow} projection. Each read is its own read-only transaction, as in
+ * a GET. Run with {@code ./gradlew benchmark}; excluded from {@code test}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TrackReadPathBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackReadPathBenchmark.class);
+    private static final String ISRC = "QZBEN2600001";
+    private static final int WARM_UP = 20_000;
+    private static final int MEASURE = 100_000;
+
+    private final TrackJpaMapper trackJpaMapper = new TrackJpaMapperImpl();
+    private final TrackDtoMapper trackDtoMapper = new TrackDtoMapperImpl();
+
+    @Autowired
+    private TrackJpaRepository repository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertTrack() {
+        jdbcTemplate.update("""
+                insert into tracks (isr_code, name, artist_name, album_name, album_id, is_explicit, playback_seconds,
+                                    cover_path)
+                values (?, 'Benchmark Track', 'Artist', 'Album', 'album-bench', false, 180, '/storage/album-bench.jpg')""",
+                ISRC);
+    }
+
+    @AfterEach
+    void deleteTrack() {
+        jdbcTemplate.update("delete from tracks where isr_code = ?", ISRC);
+    }
+
+    @Test
+    @DisplayName("projection read path allocates less per GET than the managed-entity path")
+    void entityVersusProjection() {
+        Supplier<TrackDto> entityPath = () -> repository.findById(ISRC)
+                .map(trackJpaMapper::toModel).map(trackDtoMapper::toDto).orElseThrow();
+        Supplier<TrackDto> projectionPath = () -> repository.findRowByIsrCode(ISRC)
+                .map(trackJpaMapper::toModel).map(trackDtoMapper::toDto).orElseThrow();
+        assertThat(projectionPath.get()).usingRecursiveComparison().isEqualTo(entityPath.get());
+
+        Result entity = measure(entityPath);
+        Result projection = measure(projectionPath);
+
+        log.info("entity path:     {} bytes/op, {} ns/op", entity.bytesPerOp(), entity.nanosPerOp());
+        log.info("projection path: {} bytes/op, {} ns/op", projection.bytesPerOp(), projection.nanosPerOp());
+        assertThat(projection.bytesPerOp()).isLessThan(entity.bytesPerOp());
+    }
+
+    private static Result measure(Supplier<TrackDto> read) {
+        for (int i = 0; i < WARM_UP; i++) {
+            read.get();
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE; i++) {
+            read.get();
+        }
+        long nanos = System.nanoTime() - start;
+        return new Result((threads.getThreadAllocatedBytes(thread) - bytesBefore) / MEASURE, nanos / MEASURE);
+    }
+
+    private record Result(long bytesPerOp, long nanosPerOp) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.fbaron.tracker.data.metrics;
+
+import com.fbaron.tracker.core.metrics.CacheAccessEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Unit tests for {@link FlightRecordingEndpoint} with real JFR recordings. */
+class FlightRecordingEndpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FlightRecordingEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        endpoint = new FlightRecordingEndpoint(Configuration.getConfiguration("default"), Duration.ofSeconds(30),
+                Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    @Test
+    @DisplayName("nothing to dump before a recording was started")
+    void dumpWithoutRecording() {
+        assertThat(endpoint.dump().getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("a recording runs for the requested duration, capped at the maximum, one at a time")
+    void startsOneBoundedRecording() {
+        WebEndpointResponse<FlightRecordingEndpoint.RecordingDescriptor> started =
+                endpoint.start(Duration.ofHours(1));
+        WebEndpointResponse<FlightRecordingEndpoint.RecordingDescriptor> again = endpoint.start(null);
+
+        assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(started.getBody().state()).isEqualTo("RUNNING");
+        assertThat(Duration.between(started.getBody().startTime(), started.getBody().endTime()))
+                .isEqualTo(Duration.ofMinutes(1));
+        assertThat(again.getStatus()).isEqualTo(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    @DisplayName("the dump of a running recording holds the app events slower than their threshold only")
+    void dumpsSlowAppEvents() throws Exception {
+        endpoint.start(null);
+
+        CacheAccessEvent.start("tracks", "FAST").commit();
+        CacheAccessEvent slow = CacheAccessEvent.start("tracks", "SLOW");
+        slow.setHit(false);
+        Thread.sleep(20);
+        slow.commit();
+
+        List<RecordedEvent> events = readEvents(endpoint.dump());
+        assertThat(events).filteredOn(event -> event.getEventType().getName().equals(CacheAccessEvent.NAME))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getString("key")).isEqualTo("SLOW");
+                    assertThat(event.getBoolean("hit")).isFalse();
+                    assertThat(event.getDuration()).isGreaterThanOrEqualTo(Duration.ofMillis(10));
+                });
+    }
+
+    private List<RecordedEvent> readEvents(WebEndpointResponse<Resource> response) throws Exception {
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        Path file = tempDir.resolve("dump.jfr");
+        try (InputStream in = response.getBody().getInputStream()) {
+            Files.copy(in, file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+}
@@ -0,0 +1,79 @@
+package com.fbaron.tracker.data.metrics;
+
+import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.TrackQueryRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link TimedPort} around a mocked port. */
+@ExtendWith(MockitoExtension.class)
+class TimedPortTest {
+
+    private static final String ISRC = "USMC18620549";
+
+    @Mock
+    private TrackQueryRepository delegate;
+
+    private SimpleMeterRegistry registry;
+    private TrackQueryRepository timed;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        timed = TimedPort.wrap(TrackQueryRepository.class, delegate, registry, method -> "db");
+    }
+
+    @Test
+    @DisplayName("a successful call returns the delegate's result and is timed as success")
+    void timesSuccessfulCalls() {
+        Track track = Track.builder().isrCode(ISRC).build();
+        when(delegate.findByIsrCode(ISRC)).thenReturn(Optional.of(track));
+
+        assertThat(timed.findByIsrCode(ISRC)).contains(track);
+        timed.findByIsrCode(ISRC);
+
+        Timer timer = registry.get(TimedPort.METER)
+                .tag("port", "TrackQueryRepository")
+                .tag("method", "findByIsrCode")
+                .tag("outcome", "success")
+                .tag("exception", "none")
+                .timer();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("a failing call rethrows the original exception and is timed as error")
+    void timesFailedCalls() {
+        when(delegate.findByIsrCode(ISRC)).thenThrow(new TrackNotFoundException("missing"));
+
+        assertThatThrownBy(() -> timed.findByIsrCode(ISRC)).isInstanceOf(TrackNotFoundException.class)
+                .hasMessage("missing");
+
+        assertThat(registry.get(TimedPort.METER)
+                .tag("method", "findByIsrCode")
+                .tag("outcome", "error")
+                .tag("exception", "TrackNotFoundException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Object methods are not timed")
+    void objectMethodsAreNotTimed() {
+        assertThat(timed.toString()).isEqualTo(delegate.toString());
+
+        assertThat(registry.find(TimedPort.METER).timers()).isEmpty();
+    }
+}
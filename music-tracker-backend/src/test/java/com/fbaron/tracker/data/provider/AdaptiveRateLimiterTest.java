@@ -0,0 +1,87 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Unit tests for {@link AdaptiveRateLimiter}: queueing, rejection and AIMD adjustments. */
+class AdaptiveRateLimiterTest {
+
+    @Test
+    @DisplayName("queues a caller over the concurrency limit until a slot is released")
+    void queuesOverLimit() throws Exception {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(1000, 100, 1, 1, 10, Duration.ofSeconds(5));
+        AdaptiveRateLimiter.Permit first = limiter.acquire();
+
+        CompletableFuture<AdaptiveRateLimiter.Permit> second = CompletableFuture.supplyAsync(limiter::acquire);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueueDepth() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(limiter.getQueueDepth()).isEqualTo(1);
+        assertThat(second).isNotDone();
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertThat(limiter.getQueueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("rejects with 503-style exception once the queue wait is exceeded")
+    void rejectsAfterMaxWait() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(1000, 100, 1, 1, 10, Duration.ofMillis(50));
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOf(ProviderUnavailableException.class)
+                .satisfies(e -> assertThat(((ProviderUnavailableException) e).getRetryAfter()).isPositive());
+    }
+
+    @Test
+    @DisplayName("paces callers to the token rate once the burst is spent")
+    void pacesToRate() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(20, 1, 10, 1, 10, Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire().close();
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(90));
+    }
+
+    @Test
+    @DisplayName("halves the limit on a throttle and grows it back additively on success")
+    void aimd() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(1000, 100, 8, 1, 10, Duration.ofSeconds(5));
+
+        limiter.onThrottled(Duration.ZERO);
+        limiter.onThrottled(Duration.ZERO);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getThrottledCount()).isEqualTo(2);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.onSuccess();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("a Retry-After pauses new calls for that long")
+    void retryAfterPauses() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(1000, 100, 8, 1, 10, Duration.ofSeconds(5));
+
+        limiter.onThrottled(Duration.ofMillis(200));
+        long start = System.nanoTime();
+        limiter.acquire().close();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+    }
+}
@@ -0,0 +1,198 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
+import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import com.fbaron.tracker.data.provider.CircuitBreakingMusicProviderRepository.State;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link CircuitBreakingMusicProviderRepository} and its health indicator. */
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakingMusicProviderRepositoryTest {
+
+    private static final String ISRC = "USMC18620549";
+    private static final int BURST = 8;
+
+    @Mock
+    private MusicProviderRepository delegate;
+
+    @Test
+    @DisplayName("opens after the failure rate threshold and then fails fast without calling the provider")
+    void opensAndFailsFast() {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMinutes(1), Duration.ofSeconds(5));
+        when(delegate.fetchMetadata(ISRC)).thenThrow(new ResourceAccessException("timeout"));
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.fetchMetadata(ISRC)).isInstanceOf(ResourceAccessException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        long start = System.nanoTime();
+        ProviderUnavailableException rejected = catchThrowableOfType(ProviderUnavailableException.class,
+                () -> breaker.fetchMetadata(ISRC));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(50));
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.getRetryAfter()).isPositive();
+        assertThat(rejected.getStackTrace()).isEmpty();
+        verify(delegate, times(4)).fetchMetadata(ISRC);
+    }
+
+    @Test
+    @DisplayName("not-found answers count as successful calls")
+    void notFoundIsSuccess() {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMinutes(1), Duration.ofSeconds(5));
+        when(delegate.fetchMetadata(ISRC)).thenThrow(new TrackNotFoundException("Track not found"));
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> breaker.fetchMetadata(ISRC)).isInstanceOf(TrackNotFoundException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("opens when too many calls are slow even if they succeed")
+    void opensOnSlowCalls() {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMinutes(1), Duration.ZERO);
+        when(delegate.fetchMetadata(ISRC)).thenReturn(Track.builder().isrCode(ISRC).build());
+
+        for (int i = 0; i < 4; i++) {
+            breaker.fetchMetadata(ISRC);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    @DisplayName("a burst throttled by the rate limiter in front, queued or rejected, leaves the circuit closed")
+    void throttledBurstLeavesCircuitClosed() throws Exception {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMinutes(1), Duration.ofMillis(40));
+        // one token every 50ms: admitted calls queue up to 200ms, later ones are rejected by the limiter
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(20, 1, 1, 1, 1, Duration.ofMillis(200));
+        MusicProviderRepository provider = new RateLimitedMusicProviderRepository(breaker, limiter);
+        when(delegate.fetchMetadata(ISRC)).thenReturn(Track.builder().isrCode(ISRC).build());
+
+        ExecutorService pool = Executors.newFixedThreadPool(BURST);
+        int rejected = 0;
+        try {
+            List<Future<Track>> calls = new ArrayList<>();
+            for (int i = 0; i < BURST; i++) {
+                calls.add(pool.submit(() -> provider.fetchMetadata(ISRC)));
+            }
+            for (Future<Track> call : calls) {
+                try {
+                    call.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(ProviderUnavailableException.class);
+                    rejected++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(rejected).isPositive();
+        verify(delegate, times(BURST - rejected)).fetchMetadata(ISRC);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    @DisplayName("provider 429s are left to the rate limiter and do not count as failures")
+    void throttlingIsNotFailure() {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMinutes(1), Duration.ofSeconds(5));
+        when(delegate.fetchMetadata(ISRC)).thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS,
+                "Too Many Requests", HttpHeaders.EMPTY, new byte[0], null));
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> breaker.fetchMetadata(ISRC))
+                    .isInstanceOf(HttpClientErrorException.TooManyRequests.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("half-opens after the open duration and closes once the probes succeed")
+    void closesAfterSuccessfulProbes() throws InterruptedException {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMillis(50), Duration.ofSeconds(5));
+        when(delegate.fetchMetadata(ISRC))
+                .thenThrow(new ResourceAccessException("timeout"))
+                .thenThrow(new ResourceAccessException("timeout"))
+                .thenThrow(new ResourceAccessException("timeout"))
+                .thenThrow(new ResourceAccessException("timeout"))
+                .thenReturn(Track.builder().isrCode(ISRC).build());
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.fetchMetadata(ISRC)).isInstanceOf(ResourceAccessException.class);
+        }
+        Thread.sleep(80);
+
+        breaker.fetchMetadata(ISRC);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        breaker.fetchMetadata(ISRC);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("a failing probe opens the circuit again")
+    void reopensOnFailedProbe() throws InterruptedException {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMillis(50), Duration.ofSeconds(5));
+        when(delegate.fetchMetadata(ISRC)).thenThrow(new ResourceAccessException("timeout"));
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.fetchMetadata(ISRC)).isInstanceOf(ResourceAccessException.class);
+        }
+        Thread.sleep(80);
+
+        assertThatThrownBy(() -> breaker.fetchMetadata(ISRC)).isInstanceOf(ResourceAccessException.class);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    @DisplayName("health is UP while closed and DEGRADED while open")
+    void health() {
+        CircuitBreakingMusicProviderRepository breaker = breaker(Duration.ofMinutes(1), Duration.ofSeconds(5));
+        ProviderCircuitHealthIndicator indicator = new ProviderCircuitHealthIndicator(breaker);
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+
+        when(delegate.fetchMetadata(ISRC)).thenThrow(new ResourceAccessException("timeout"));
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.fetchMetadata(ISRC)).isInstanceOf(ResourceAccessException.class);
+        }
+
+        assertThat(indicator.health().getStatus()).isEqualTo(ProviderCircuitHealthIndicator.DEGRADED);
+        assertThat(indicator.health().getDetails()).containsEntry("state", State.OPEN).containsKey("retryAfter");
+    }
+
+    /** Window of 10, opens at 50% failures (or slow calls) once 4 calls are recorded, 2 probes. */
+    private CircuitBreakingMusicProviderRepository breaker(Duration openDuration, Duration slowCallThreshold) {
+        return new CircuitBreakingMusicProviderRepository(delegate, 10, 4, 50, slowCallThreshold, 50,
+                openDuration, 2);
+    }
+}
@@ -0,0 +1,69 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link NegativeCachingMusicProviderRepository} with a mocked provider. */
+@ExtendWith(MockitoExtension.class)
+class NegativeCachingMusicProviderRepositoryTest {
+
+    private static final String ISRC = "USMC18620549";
+
+    @Mock
+    private MusicProviderRepository delegate;
+
+    private NegativeCachingMusicProviderRepository provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new NegativeCachingMusicProviderRepository(delegate, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("repeated misses do not reach the provider again")
+    void repeatedMissesSkipProvider() {
+        when(delegate.fetchMetadata(ISRC)).thenThrow(new TrackNotFoundException("Track not found with IRSC: " + ISRC));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        provider.bindTo(registry);
+
+        assertThatThrownBy(() -> provider.fetchMetadata(ISRC)).isInstanceOf(TrackNotFoundException.class);
+        assertThatThrownBy(() -> provider.fetchMetadata(ISRC))
+                .isInstanceOf(TrackNotFoundException.class)
+                .hasMessageContaining(ISRC);
+
+        verify(delegate, times(1)).fetchMetadata(ISRC);
+        assertThat(registry.get("tracks.negative.cache.hits").tag("source", "provider")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("hits and other failures are not remembered")
+    void onlyNotFoundIsCached() {
+        Track track = Track.builder().isrCode(ISRC).name("Track").build();
+        when(delegate.fetchMetadata(ISRC))
+                .thenThrow(new IllegalStateException("provider down"))
+                .thenReturn(track);
+
+        assertThatThrownBy(() -> provider.fetchMetadata(ISRC)).isInstanceOf(IllegalStateException.class);
+        assertThat(provider.fetchMetadata(ISRC)).isSameAs(track);
+        assertThat(provider.fetchMetadata(ISRC)).isSameAs(track);
+
+        verify(delegate, times(3)).fetchMetadata(ISRC);
+    }
+}
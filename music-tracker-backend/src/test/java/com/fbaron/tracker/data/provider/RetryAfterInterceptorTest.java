@@ -0,0 +1,156 @@
+package com.fbaron.tracker.data.provider;
+
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
+import com.fbaron.tracker.core.model.Track;
+import com.fbaron.tracker.core.repository.MusicProviderRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests {@link RetryAfterInterceptor} and {@link RateLimitedMusicProviderRepository} against a local HTTP stub
+ * that answers 429 before succeeding.
+ */
+class RetryAfterInterceptorTest {
+
+    private final Deque<Integer> statuses = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String retryAfter;
+    private HttpServer server;
+    private AdaptiveRateLimiter limiter;
+    private RestClient restClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            Integer status = statuses.poll();
+            int code = status != null ? status : 200;
+            if (code == 429 && retryAfter != null) {
+                exchange.getResponseHeaders().add(HttpHeaders.RETRY_AFTER, retryAfter);
+            }
+            byte[] body = (code == 200 ? "ok" : "slow down").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        limiter = new AdaptiveRateLimiter(1000, 100, 8, 1, 10, Duration.ofSeconds(5));
+        restClient = RestClient.builder()
+                .requestFactory(new JdkClientHttpRequestFactory())
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .requestInterceptor(new RetryAfterInterceptor(limiter, 3, Duration.ofMillis(10), Duration.ofSeconds(2)))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("retries a GET after the Retry-After delay and reports the throttle")
+    void retriesAfterRetryAfter() {
+        statuses.add(429);
+        retryAfter = "1";
+
+        long start = System.nanoTime();
+        String body = restClient.get().uri("/v1/search").retrieve().body(String.class);
+
+        assertThat(body).isEqualTo("ok");
+        assertThat(requests).hasValue(2);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+        assertThat(limiter.getThrottledCount()).isEqualTo(1);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("retries with jittered backoff when there is no Retry-After")
+    void retriesWithBackoff() {
+        statuses.add(429);
+        statuses.add(429);
+
+        String body = restClient.get().uri("/v1/search").retrieve().body(String.class);
+
+        assertThat(body).isEqualTo("ok");
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("does not retry non-idempotent requests")
+    void doesNotRetryPost() {
+        statuses.add(429);
+
+        assertThatThrownBy(() -> restClient.post().uri("/api/token").retrieve().toBodilessEntity())
+                .isInstanceOf(HttpClientErrorException.TooManyRequests.class);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("gives up when the provider asks to wait longer than the maximum")
+    void givesUpOnLongRetryAfter() {
+        statuses.add(429);
+        retryAfter = "30";
+
+        assertThatThrownBy(() -> restClient.get().uri("/v1/search").retrieve().body(String.class))
+                .isInstanceOf(HttpClientErrorException.TooManyRequests.class);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("the port decorator turns an exhausted 429 into ProviderUnavailableException with Retry-After")
+    void decoratorMapsExhausted429() {
+        for (int i = 0; i < 3; i++) {
+            statuses.add(429);
+        }
+        retryAfter = "0";
+        MusicProviderRepository stubProvider = new MusicProviderRepository() {
+            @Override
+            public Track fetchMetadata(String isrCode) {
+                restClient.get().uri("/v1/search").retrieve().body(String.class);
+                return Track.builder().isrCode(isrCode).build();
+            }
+
+            @Override
+            public <T> T fetchCoverImage(String albumId, Function<InputStream, T> reader) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T> T downloadCoverImage(String imageUrl, Function<InputStream, T> reader) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        RateLimitedMusicProviderRepository repository = new RateLimitedMusicProviderRepository(stubProvider, limiter);
+
+        assertThatThrownBy(() -> repository.fetchMetadata("USMC18620549"))
+                .isInstanceOf(ProviderUnavailableException.class)
+                .satisfies(e -> assertThat(((ProviderUnavailableException) e).getRetryAfter()).isEqualTo(Duration.ZERO));
+        assertThat(requests).hasValue(3);
+
+        assertThat(repository.fetchMetadata("USMC18620549").getIsrCode()).isEqualTo("USMC18620549");
+    }
+}
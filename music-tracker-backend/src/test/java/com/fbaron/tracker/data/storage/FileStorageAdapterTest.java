@@ -0,0 +1,198 @@
+package com.fbaron.tracker.data.storage;
+
+import com.fbaron.tracker.core.exception.FileReadException;
+import com.fbaron.tracker.core.exception.StorageException;
+import com.fbaron.tracker.core.model.CoverSize;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.StoredCover;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Unit tests for {@link FileStorageAdapter} writes and cover variants against a temporary storage root. */
+class FileStorageAdapterTest {
+
+    @TempDir
+    Path storage;
+
+    private FileStorageAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        adapter = new FileStorageAdapter();
+        ReflectionTestUtils.setField(adapter, "storageLocation", storage.toString());
+        ReflectionTestUtils.setField(adapter, "jpegQuality", 0.85f);
+        adapter.init();
+    }
+
+    @Test
+    @DisplayName("streams the cover to albumId.jpg and leaves no temp file behind")
+    void savesStreamedCover() throws IOException {
+        byte[] content = {1, 2, 3, 4, 5};
+
+        String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(content));
+
+        assertThat(Path.of(path)).isEqualTo(storage.resolve("album-123.jpg").toAbsolutePath());
+        assertThat(Files.readAllBytes(Path.of(path))).isEqualTo(content);
+        try (Stream<Path> files = Files.list(storage)) {
+            assertThat(files).containsExactly(storage.resolve("album-123.jpg"));
+        }
+    }
+
+    @Test
+    @DisplayName("a staged cover is only visible at albumId.jpg once published")
+    void stagedCoverIsPublishedLater() throws IOException {
+        StagedCover staged = adapter.stageCover("album-123", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        assertThat(staged.bytes()).isEqualTo(3);
+        assertThat(storage.resolve("album-123.jpg")).doesNotExist();
+
+        String path = adapter.publishCover(staged);
+
+        assertThat(Files.readAllBytes(Path.of(path))).containsExactly(1, 2, 3);
+        assertThat(Path.of(staged.stagedPath())).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("replaces an existing cover as a whole")
+    void replacesExistingCover() throws IOException {
+        adapter.saveToDisk("album-123", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(new byte[]{9}));
+
+        assertThat(Files.readAllBytes(Path.of(path))).containsExactly(9);
+    }
+
+    @Test
+    @DisplayName("a download that breaks midway keeps the previous cover and cleans up the temp file")
+    void failedStreamKeepsPreviousCover() throws IOException {
+        adapter.saveToDisk("album-123", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        InputStream broken = new SequenceInputStream(new ByteArrayInputStream(new byte[4096]), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        assertThatThrownBy(() -> adapter.saveToDisk("album-123", broken)).isInstanceOf(StorageException.class);
+
+        assertThat(Files.readAllBytes(storage.resolve("album-123.jpg"))).containsExactly(1, 2, 3);
+        try (Stream<Path> files = Files.list(storage)) {
+            assertThat(files).containsExactly(storage.resolve("album-123.jpg"));
+        }
+    }
+
+    @Test
+    @DisplayName("stats a cover's size and modification time")
+    void statsCover() throws IOException {
+        String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        Files.setLastModifiedTime(Path.of(path), FileTime.fromMillis(1_700_000_000_000L));
+
+        StoredCover cover = adapter.statCover(path);
+
+        assertThat(cover).isEqualTo(new StoredCover(path, 3, 1_700_000_000_000L));
+    }
+
+    @Test
+    @DisplayName("throws FileReadException when stat'ing a missing cover")
+    void statThrowsForMissingCover() {
+        String path = storage.resolve("missing.jpg").toString();
+
+        assertThatThrownBy(() -> adapter.statCover(path)).isInstanceOf(FileReadException.class);
+    }
+
+    @Nested
+    @DisplayName("coverVariant")
+    class CoverVariant {
+
+        @Test
+        @DisplayName("returns the original path for ORIGINAL")
+        void originalIsThePath() throws IOException {
+            String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(jpeg(640, 640)));
+
+            assertThat(adapter.coverVariant(path, CoverSize.ORIGINAL)).isEqualTo(path);
+        }
+
+        @Test
+        @DisplayName("generates a smaller JPEG next to the original once and reuses it")
+        void generatesVariantOnce() throws IOException {
+            byte[] original = jpeg(640, 480);
+            String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(original));
+
+            String small = adapter.coverVariant(path, CoverSize.SMALL);
+            FileTime generatedAt = Files.getLastModifiedTime(Path.of(small));
+
+            assertThat(Path.of(small)).isEqualTo(storage.resolve("album-123.small.jpg").toAbsolutePath());
+            BufferedImage image = ImageIO.read(Path.of(small).toFile());
+            assertThat(image.getWidth()).isEqualTo(64);
+            assertThat(image.getHeight()).isEqualTo(48);
+            assertThat(Files.size(Path.of(small))).isLessThan(original.length);
+            assertThat(adapter.coverVariant(path, CoverSize.SMALL)).isEqualTo(small);
+            assertThat(Files.getLastModifiedTime(Path.of(small))).isEqualTo(generatedAt);
+        }
+
+        @Test
+        @DisplayName("does not upscale covers already within the size")
+        void doesNotUpscale() throws IOException {
+            String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(jpeg(200, 200)));
+
+            String medium = adapter.coverVariant(path, CoverSize.MEDIUM);
+
+            assertThat(ImageIO.read(Path.of(medium).toFile()).getWidth()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("replacing the original drops its variants")
+        void replacingOriginalDropsVariants() throws IOException {
+            String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(jpeg(640, 640)));
+            String small = adapter.coverVariant(path, CoverSize.SMALL);
+
+            adapter.saveToDisk("album-123", new ByteArrayInputStream(jpeg(320, 320)));
+
+            assertThat(Path.of(small)).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("throws FileReadException when the original is not an image")
+        void throwsForUnreadableOriginal() {
+            String path = adapter.saveToDisk("album-123", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+            assertThatThrownBy(() -> adapter.coverVariant(path, CoverSize.SMALL))
+                    .isInstanceOf(FileReadException.class);
+            assertThat(storage.resolve("album-123.small.jpg")).doesNotExist();
+        }
+    }
+
+    /** A noisy JPEG so that size comparisons are not dominated by headers. */
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+}
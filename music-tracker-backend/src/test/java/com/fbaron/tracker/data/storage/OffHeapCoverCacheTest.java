@@ -0,0 +1,138 @@
+package com.fbaron.tracker.data.storage;
+
+import com.fbaron.tracker.core.model.CoverImage;
+import com.fbaron.tracker.core.model.StagedCover;
+import com.fbaron.tracker.core.model.StoredCover;
+import com.fbaron.tracker.core.repository.FileStorageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link OffHeapCoverCache} against real files and a mocked delegate. */
+@ExtendWith(MockitoExtension.class)
+class OffHeapCoverCacheTest {
+
+    @TempDir
+    Path storage;
+
+    @Mock
+    private FileStorageRepository delegate;
+
+    @Test
+    @DisplayName("serves covers from a direct buffer without touching the delegate")
+    void servesFromDirectBuffer() throws IOException {
+        byte[] content = {1, 2, 3, 4, 5};
+        Path cover = Files.write(storage.resolve("album-123.jpg"), content);
+        OffHeapCoverCache cache = new OffHeapCoverCache(delegate, 1024, 1024);
+
+        CoverImage first = cache.readCover(cover.toString());
+        Files.delete(cover);
+        CoverImage second = cache.readCover(cover.toString());
+
+        assertThat(first.contentLength()).isEqualTo(content.length);
+        assertThat(readAll(second)).isEqualTo(content);
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    @DisplayName("streams skip and read independently over the shared buffer")
+    void streamsAreIndependent() throws IOException {
+        byte[] content = {1, 2, 3, 4, 5};
+        Path cover = Files.write(storage.resolve("album-123.jpg"), content);
+        OffHeapCoverCache cache = new OffHeapCoverCache(delegate, 1024, 1024);
+        CoverImage image = cache.readCover(cover.toString());
+
+        try (InputStream ranged = image.openStream()) {
+            assertThat(ranged.skip(3)).isEqualTo(3);
+            assertThat(ranged.readAllBytes()).containsExactly(4, 5);
+        }
+        assertThat(readAll(image)).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("covers above the entry limit go to the delegate")
+    void largeCoversBypassCache() throws IOException {
+        Path cover = Files.write(storage.resolve("album-123.jpg"), new byte[64]);
+        CoverImage fromDisk = new ByteBufferCoverImage(ByteBuffer.wrap(new byte[64]), 0L);
+        when(delegate.readCover(cover.toString())).thenReturn(fromDisk);
+        OffHeapCoverCache cache = new OffHeapCoverCache(delegate, 1024, 16);
+
+        assertThat(cache.readCover(cover.toString())).isSameAs(fromDisk);
+    }
+
+    @Test
+    @DisplayName("saving a cover drops the stale cached copy")
+    void saveInvalidates() throws IOException {
+        Path cover = Files.write(storage.resolve("album-123.jpg"), new byte[]{1});
+        OffHeapCoverCache cache = new OffHeapCoverCache(delegate, 1024, 1024);
+        cache.readCover(cover.toString());
+        byte[] updated = {7, 8};
+        InputStream content = new ByteArrayInputStream(updated);
+        StagedCover staged = new StagedCover("album-123", storage.resolve("album-123-1.tmp").toString(), 2);
+        when(delegate.stageCover("album-123", content)).thenReturn(staged);
+        when(delegate.publishCover(staged)).thenAnswer(invocation -> {
+            Files.write(cover, updated);
+            return cover.toString();
+        });
+
+        cache.saveToDisk("album-123", content);
+
+        assertThat(readAll(cache.readCover(cover.toString()))).isEqualTo(updated);
+        verify(delegate).publishCover(staged);
+    }
+
+    @Test
+    @DisplayName("stats covers through the delegate without loading them")
+    void statDoesNotLoad() throws IOException {
+        Path cover = Files.write(storage.resolve("album-123.jpg"), new byte[100]);
+        StoredCover stored = new StoredCover(cover.toString(), 100, 0L);
+        when(delegate.statCover(cover.toString())).thenReturn(stored);
+        OffHeapCoverCache cache = new OffHeapCoverCache(delegate, 1024, 1024);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        assertThat(cache.statCover(cover.toString())).isSameAs(stored);
+
+        assertThat(registry.get("tracks.covers.cache.bytes").gauge().value()).isZero();
+        assertThat(registry.get("cache.gets").tag("cache", "covers").tag("result", "miss")
+                .functionCounter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("reports hits and misses")
+    void reportsStats() throws IOException {
+        Path cover = Files.write(storage.resolve("album-123.jpg"), new byte[100]);
+        OffHeapCoverCache cache = new OffHeapCoverCache(delegate, 1024, 1024);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.readCover(cover.toString());
+        cache.readCover(cover.toString());
+
+        assertThat(registry.get("cache.gets").tag("cache", "covers").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("tracks.covers.cache.bytes").gauge()).isNotNull();
+    }
+
+    private static byte[] readAll(CoverImage image) throws IOException {
+        try (InputStream in = image.openStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
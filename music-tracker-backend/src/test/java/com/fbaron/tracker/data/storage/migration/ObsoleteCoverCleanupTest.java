@@ -0,0 +1,83 @@
+package com.fbaron.tracker.data.storage.migration;
+
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+
+/** Unit tests for {@link ObsoleteCoverCleanup} against an in-memory H2 tracks table. */
+@ExtendWith(MockitoExtension.class)
+class ObsoleteCoverCleanupTest {
+
+    @TempDir
+    Path storage;
+
+    @Mock
+    private Context context;
+
+    private Connection connection;
+    private final ObsoleteCoverCleanup cleanup = new ObsoleteCoverCleanup();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:cleanup;DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE tracks (isr_code VARCHAR(12) PRIMARY KEY, cover_path VARCHAR(255))");
+        }
+        lenient().when(context.getConnection()).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE tracks");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("after a committed migration, unreferenced obsolete covers are deleted and referenced ones kept")
+    void deletesUnreferencedCoversAfterMigrate() throws Exception {
+        Path obsolete = Files.writeString(storage.resolve("USMC18620549.jpg"), "old");
+        Path referenced = Files.writeString(storage.resolve("USMC18620550.jpg"), "still used");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO tracks VALUES ('USMC18620550', '" + referenced + "')");
+        }
+        cleanup.deleteAfterCommit(List.of(obsolete, referenced));
+
+        cleanup.handle(Event.AFTER_MIGRATE, context);
+
+        assertThat(obsolete).doesNotExist();
+        assertThat(referenced).exists();
+    }
+
+    @Test
+    @DisplayName("after a failed migration no file is deleted")
+    void keepsCoversAfterFailedMigration() throws Exception {
+        Path obsolete = Files.writeString(storage.resolve("USMC18620549.jpg"), "old");
+        cleanup.deleteAfterCommit(List.of(obsolete));
+
+        cleanup.handle(Event.AFTER_MIGRATE_ERROR, context);
+        cleanup.handle(Event.AFTER_MIGRATE, context);
+
+        assertThat(obsolete).exists();
+    }
+}
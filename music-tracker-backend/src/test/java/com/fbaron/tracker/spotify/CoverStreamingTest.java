@@ -0,0 +1,133 @@
+package com.fbaron.tracker.spotify;
+
+import com.fbaron.tracker.data.spotify.SpotifyAdapter;
+import com.fbaron.tracker.data.storage.FileStorageAdapter;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Downloads large covers from a local HTTP stub through {@link SpotifyAdapter} into {@link FileStorageAdapter},
+ * the path a registration takes, and checks that the heap allocated per download does not grow with the image.
+ */
+class CoverStreamingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CoverStreamingTest.class);
+    private static final int IMAGE_BYTES = 8 * 1024 * 1024;
+    private static final int IMAGES = 32;
+    private static final int PARALLELISM = 8;
+    /** Generous bound for per-request client and copy buffers; buffering the image would take 8 MB at least. */
+    private static final long MAX_ALLOCATED_PER_DOWNLOAD = 2 * 1024 * 1024;
+
+    @TempDir
+    Path storage;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private CloseableHttpClient httpClient;
+    private SpotifyAdapter adapter;
+    private FileStorageAdapter fileStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newFixedThreadPool(PARALLELISM);
+        server.setExecutor(serverThreads);
+        server.createContext("/image/", exchange -> {
+            byte[] chunk = new byte[64 * 1024];
+            exchange.getResponseHeaders().add("Content-Type", "image/jpeg");
+            exchange.sendResponseHeaders(200, IMAGE_BYTES);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int written = 0; written < IMAGE_BYTES; written += chunk.length) {
+                    out.write(chunk);
+                }
+            }
+        });
+        server.start();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(PARALLELISM)
+                        .setMaxConnPerRoute(PARALLELISM)
+                        .build())
+                .build();
+        RestClient coverImageRestClient = RestClient.builder()
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+        adapter = new SpotifyAdapter(null, coverImageRestClient, null, null);
+
+        fileStorage = new FileStorageAdapter();
+        ReflectionTestUtils.setField(fileStorage, "storageLocation", storage.toString());
+        fileStorage.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("parallel downloads of large covers stream to disk without holding the image on the heap")
+    void allocationIndependentOfCoverSize() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/image/";
+        // first request loads and initializes the client stack; not part of the steady state
+        adapter.downloadCoverImage(baseUrl + "warm-up", image -> fileStorage.saveToDisk("warm-up", image));
+
+        ExecutorService pool = Executors.newFixedThreadPool(PARALLELISM);
+        List<Future<Long>> downloads = new ArrayList<>();
+        try {
+            for (int i = 0; i < IMAGES; i++) {
+                String albumId = "album-" + i;
+                downloads.add(pool.submit(() -> {
+                    long before = threads.getCurrentThreadAllocatedBytes();
+                    String path = adapter.downloadCoverImage(baseUrl + albumId,
+                            image -> fileStorage.saveToDisk(albumId, image));
+                    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+                    assertThat(Files.size(Path.of(path))).isEqualTo(IMAGE_BYTES);
+                    return allocated;
+                }));
+            }
+            long maxAllocated = 0;
+            long totalAllocated = 0;
+            for (Future<Long> download : downloads) {
+                long allocated = download.get();
+                maxAllocated = Math.max(maxAllocated, allocated);
+                totalAllocated += allocated;
+            }
+            log.info("{} covers of {} KB: {} KB allocated in total, at most {} KB per download",
+                    IMAGES, IMAGE_BYTES / 1024, totalAllocated / 1024, maxAllocated / 1024);
+            assertThat(maxAllocated).isLessThan(MAX_ALLOCATED_PER_DOWNLOAD);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
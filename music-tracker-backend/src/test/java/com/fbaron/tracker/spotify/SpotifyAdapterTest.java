@@ -5,6 +5,7 @@ import com.fbaron.tracker.core.exception.ProviderAuthenticationException;
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.data.spotify.SpotifyAdapter;
+import com.fbaron.tracker.data.spotify.SpotifyTokenProvider;
 import com.fbaron.tracker.data.spotify.entity.SpotifyAlbum;
 import com.fbaron.tracker.data.spotify.entity.SpotifyAlbumResponse;
 import com.fbaron.tracker.data.spotify.entity.SpotifyArtist;
@@ -20,21 +21,31 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.util.MultiValueMap;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
-
-import java.lang.reflect.Field;
+import org.springframework.web.client.RestClient.RequestHeadersSpec.ConvertibleClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
-/** Unit tests for {@link SpotifyAdapter}: fetchMetadata and fetchCoverImage with mocked RestClient. */
+/** Unit tests for {@link SpotifyAdapter}: fetchMetadata and fetchCoverImage with mocked RestClient and token. */
 @ExtendWith(MockitoExtension.class)
 class SpotifyAdapterTest {
 
@@ -43,44 +54,34 @@ class SpotifyAdapterTest {
     @Mock
     private RestClient spotifyRestClient;
     @Mock
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private RestClient.RequestBodyUriSpec requestBodyUriSpec;
+    private RestClient coverImageRestClient;
     @Mock
     @SuppressWarnings({"rawtypes", "unchecked"})
     private RestClient.RequestHeadersUriSpec requestHeadersUriSpec;
     @Mock
-    private RestClient.RequestBodySpec requestBodySpec;
-    @Mock
     @SuppressWarnings({"rawtypes", "unchecked"})
     private RestClient.RequestHeadersSpec requestHeadersSpec;
     @Mock
     private RestClient.ResponseSpec responseSpec;
+    @Mock
+    private ConvertibleClientHttpResponse response;
+    @Mock
+    private HttpRequest request;
 
     @Mock
     private SpotifyMapper spotifyTrackMapper;
+    @Mock
+    private SpotifyTokenProvider spotifyTokenProvider;
 
     private SpotifyAdapter adapter;
 
     @BeforeEach
-    void setUp() throws Exception {
-        adapter = new SpotifyAdapter(spotifyRestClient, spotifyTrackMapper);
-        setField(adapter, "authUrl", "https://accounts.spotify.com/api/token");
-        setField(adapter, "clientId", "test-client-id");
-        setField(adapter, "clientSecret", "test-client-secret");
-    }
-
-    private static Map<String, Object> tokenResponse() {
-        return Map.of("access_token", "test-token", "expires_in", 3600);
+    void setUp() {
+        adapter = new SpotifyAdapter(spotifyRestClient, coverImageRestClient, spotifyTrackMapper, spotifyTokenProvider);
     }
 
     private void stubToken() {
-        when(spotifyRestClient.post()).thenReturn(requestBodyUriSpec);
-        when(requestBodyUriSpec.uri(any(String.class))).thenReturn(requestBodySpec);
-        when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-        when(requestBodySpec.headers(any())).thenReturn(requestBodySpec);
-        when(requestBodySpec.body(any(MultiValueMap.class))).thenReturn(requestBodySpec);
-        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.body(eq(Map.class))).thenReturn(tokenResponse());
+        when(spotifyTokenProvider.getToken()).thenReturn("test-token");
     }
 
     @Nested
@@ -164,22 +165,36 @@ class SpotifyAdapterTest {
         }
 
         @Test
-        @DisplayName("throws ProviderAuthenticationException when token response has no access_token")
-        void throwsWhenTokenFails() throws Exception {
-            when(spotifyRestClient.post()).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.uri(any(String.class))).thenReturn(requestBodySpec);
-            when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-            when(requestBodySpec.headers(any())).thenReturn(requestBodySpec);
-            when(requestBodySpec.body(any(MultiValueMap.class))).thenReturn(requestBodySpec);
-            when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-            when(responseSpec.body(eq(Map.class))).thenReturn(Map.of("error", "invalid_client"));
-
-            setField(adapter, "cachedToken", null);
-            setField(adapter, "expiryTime", null);
+        @DisplayName("throws ProviderAuthenticationException when no token can be obtained")
+        void throwsWhenTokenFails() {
+            when(spotifyTokenProvider.getToken())
+                    .thenThrow(new ProviderAuthenticationException("Failed to obtain Spotify access token"));
 
             assertThatThrownBy(() -> adapter.fetchMetadata(ISRC))
                     .isInstanceOf(ProviderAuthenticationException.class)
                     .hasMessageContaining("Failed to obtain Spotify access token");
+            verifyNoInteractions(spotifyRestClient);
+        }
+
+        @Test
+        @DisplayName("refreshes the token once and retries when Spotify answers 401")
+        void retriesOnceWithRefreshedTokenOn401() {
+            stubToken();
+            when(spotifyTokenProvider.refreshRejected("test-token")).thenReturn("fresh-token");
+            SpotifySearchResponse emptyResponse = new SpotifySearchResponse(new SpotifyTrackList(List.of()));
+
+            when(spotifyRestClient.get()).thenReturn(requestHeadersUriSpec);
+            when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
+            when(requestHeadersSpec.headers(any())).thenReturn(requestHeadersSpec);
+            when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+            when(responseSpec.body(SpotifySearchResponse.class))
+                    .thenThrow(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized",
+                            HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8))
+                    .thenReturn(emptyResponse);
+
+            assertThatThrownBy(() -> adapter.fetchMetadata(ISRC))
+                    .isInstanceOf(TrackNotFoundException.class);
+            verify(spotifyTokenProvider).refreshRejected("test-token");
         }
     }
 
@@ -192,7 +207,7 @@ class SpotifyAdapterTest {
 
         @Test
         @DisplayName("returns cover image bytes when album has images")
-        void returnsCoverImageWhenAlbumHasImages() {
+        void returnsCoverImageWhenAlbumHasImages() throws IOException {
             stubToken();
 
             SpotifyAlbumResponse albumResponse = new SpotifyAlbumResponse(
@@ -201,16 +216,33 @@ class SpotifyAdapterTest {
             byte[] coverBytes = new byte[]{1, 2, 3};
 
             when(spotifyRestClient.get()).thenReturn(requestHeadersUriSpec);
+            when(coverImageRestClient.get()).thenReturn(requestHeadersUriSpec);
             when(requestHeadersUriSpec.uri(eq("/v1/albums/{albumId}"), eq(ALBUM_ID))).thenReturn(requestHeadersSpec);
-            when(requestHeadersUriSpec.uri(eq(IMAGE_URL))).thenReturn(requestHeadersSpec);
+            when(requestHeadersUriSpec.uri(URI.create(IMAGE_URL))).thenReturn(requestHeadersSpec);
             when(requestHeadersSpec.headers(any())).thenReturn(requestHeadersSpec);
             when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
             when(responseSpec.body(SpotifyAlbumResponse.class)).thenReturn(albumResponse);
-            when(responseSpec.body(byte[].class)).thenReturn(coverBytes);
+            stubDownload(coverBytes);
+
+            byte[] result = adapter.fetchCoverImage(ALBUM_ID, SpotifyAdapterTest::readAll);
+
+            assertThat(result).isEqualTo(coverBytes);
+        }
 
-            byte[] result = adapter.fetchCoverImage(ALBUM_ID);
+        @Test
+        @DisplayName("downloadCoverImage streams the body from the given URL on the CDN client without an album lookup")
+        void downloadsCoverImageFromUrl() throws IOException {
+            byte[] coverBytes = new byte[]{1, 2, 3};
+
+            when(coverImageRestClient.get()).thenReturn(requestHeadersUriSpec);
+            when(requestHeadersUriSpec.uri(URI.create(IMAGE_URL))).thenReturn(requestHeadersSpec);
+            stubDownload(coverBytes);
+
+            byte[] result = adapter.downloadCoverImage(IMAGE_URL, SpotifyAdapterTest::readAll);
 
             assertThat(result).isEqualTo(coverBytes);
+            verify(response).getBody();
+            verifyNoInteractions(spotifyRestClient);
         }
 
         @Test
@@ -224,7 +256,7 @@ class SpotifyAdapterTest {
             when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
             when(responseSpec.body(SpotifyAlbumResponse.class)).thenReturn(null);
 
-            assertThatThrownBy(() -> adapter.fetchCoverImage(ALBUM_ID))
+            assertThatThrownBy(() -> adapter.fetchCoverImage(ALBUM_ID, SpotifyAdapterTest::readAll))
                     .isInstanceOf(ImageNotFoundException.class)
                     .hasMessageContaining(ALBUM_ID);
         }
@@ -242,34 +274,38 @@ class SpotifyAdapterTest {
             when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
             when(responseSpec.body(SpotifyAlbumResponse.class)).thenReturn(albumResponse);
 
-            assertThatThrownBy(() -> adapter.fetchCoverImage(ALBUM_ID))
+            assertThatThrownBy(() -> adapter.fetchCoverImage(ALBUM_ID, SpotifyAdapterTest::readAll))
                     .isInstanceOf(ImageNotFoundException.class)
                     .hasMessageContaining(ALBUM_ID);
         }
 
         @Test
         @DisplayName("throws ProviderAuthenticationException when token fails")
-        void throwsWhenTokenFails() throws Exception {
-            when(spotifyRestClient.post()).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.uri(any(String.class))).thenReturn(requestBodySpec);
-            when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
-            when(requestBodySpec.headers(any())).thenReturn(requestBodySpec);
-            when(requestBodySpec.body(any(MultiValueMap.class))).thenReturn(requestBodySpec);
-            when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-            when(responseSpec.body(eq(Map.class))).thenReturn(Map.of("error", "invalid_client"));
-
-            setField(adapter, "cachedToken", null);
-            setField(adapter, "expiryTime", null);
-
-            assertThatThrownBy(() -> adapter.fetchCoverImage(ALBUM_ID))
+        void throwsWhenTokenFails() {
+            when(spotifyTokenProvider.getToken())
+                    .thenThrow(new ProviderAuthenticationException("Failed to obtain Spotify access token"));
+
+            assertThatThrownBy(() -> adapter.fetchCoverImage(ALBUM_ID, SpotifyAdapterTest::readAll))
                     .isInstanceOf(ProviderAuthenticationException.class)
                     .hasMessageContaining("Failed to obtain Spotify access token");
         }
     }
 
-    private static void setField(Object target, String fieldName, Object value) throws Exception {
-        Field field = SpotifyAdapter.class.getDeclaredField(fieldName);
-        field.setAccessible(true);
-        field.set(target, value);
+    /** Runs the adapter's exchange function against a 200 response whose body is the given image. */
+    @SuppressWarnings("unchecked")
+    private void stubDownload(byte[] image) throws IOException {
+        when(response.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(response.getBody()).thenReturn(new ByteArrayInputStream(image));
+        when(requestHeadersSpec.exchange(any())).thenAnswer(invocation -> invocation
+                .<RestClient.RequestHeadersSpec.ExchangeFunction<Object>>getArgument(0)
+                .exchange(request, response));
+    }
+
+    private static byte[] readAll(InputStream image) {
+        try {
+            return image.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
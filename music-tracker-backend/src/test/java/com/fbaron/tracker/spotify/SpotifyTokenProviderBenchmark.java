@@ -0,0 +1,92 @@
+package com.fbaron.tracker.spotify;
+
+import com.fbaron.tracker.data.spotify.SpotifyTokenProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Throughput of the token read path under many threads: {@link SpotifyTokenProvider} against the former
+ * {@code synchronized} getter. Run with {@code ./gradlew benchmark}; excluded from {@code test}.
+ */
+@Tag("benchmark")
+class SpotifyTokenProviderBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SpotifyTokenProviderBenchmark.class);
+    private static final String AUTH_URL = "https://accounts.spotify.com/api/token";
+    private static final Duration WARM_UP = Duration.ofMillis(500);
+    private static final Duration MEASURE = Duration.ofSeconds(2);
+
+    @Test
+    @DisplayName("lock-free token reads scale with the number of threads")
+    void readThroughput() throws InterruptedException {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo(AUTH_URL))
+                .andRespond(withSuccess("{\"access_token\":\"token\",\"expires_in\":3600}", MediaType.APPLICATION_JSON));
+
+        try (SpotifyTokenProvider provider = new SpotifyTokenProvider(builder.build(), AUTH_URL, "id", "secret",
+                Duration.ofMinutes(5), false, Clock.systemUTC())) {
+            provider.getToken();
+            SynchronizedToken baseline = new SynchronizedToken();
+
+            for (int threads : new int[]{1, 16, 64, 256}) {
+                long lockFree = opsPerSecond(threads, provider::getToken);
+                long synchronizedReads = opsPerSecond(threads, baseline::get);
+                log.info("threads={} lock-free={} ops/s synchronized={} ops/s ({}x)", threads, lockFree,
+                        synchronizedReads, synchronizedReads == 0 ? "-" : lockFree / synchronizedReads);
+                assertThat(lockFree).isPositive();
+            }
+            assertThat(provider.getRefreshCount()).isEqualTo(1);
+        }
+    }
+
+    private static long opsPerSecond(int threads, Supplier<String> read) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long warmUpEnd = System.nanoTime() + WARM_UP.toNanos();
+        long measureEnd = warmUpEnd + MEASURE.toNanos();
+        for (int i = 0; i < threads; i++) {
+            Thread.ofPlatform().start(() -> {
+                long count = 0;
+                long now;
+                while ((now = System.nanoTime()) < measureEnd) {
+                    if (read.get() != null && now >= warmUpEnd) {
+                        count++;
+                    }
+                }
+                ops.add(count);
+                done.countDown();
+            });
+        }
+        done.await();
+        return ops.sum() * 1_000 / MEASURE.toMillis();
+    }
+
+    /** The previous read path: every call takes the monitor to check expiry. */
+    private static final class SynchronizedToken {
+
+        private final String token = "token";
+        private final Instant expiryTime = Instant.now().plus(Duration.ofHours(1));
+
+        synchronized String get() {
+            return Instant.now().isBefore(expiryTime) ? token : null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.fbaron.tracker.spotify;
+
+import com.fbaron.tracker.core.exception.ProviderAuthenticationException;
+import com.fbaron.tracker.data.spotify.SpotifyTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/** Unit tests for {@link SpotifyTokenProvider} against a mocked token endpoint. */
+class SpotifyTokenProviderTest {
+
+    private static final String AUTH_URL = "https://accounts.spotify.com/api/token";
+
+    private final AtomicInteger issued = new AtomicInteger();
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private MockRestServiceServer server;
+    private RestClient restClient;
+    private SpotifyTokenProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+        restClient = builder.build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    @DisplayName("fetches a token once and serves it until it expires")
+    void servesCachedToken() {
+        expectTokens(3600, 0);
+        provider = provider(clock);
+
+        assertThat(provider.getToken()).isEqualTo("token-1");
+        assertThat(provider.getToken()).isEqualTo("token-1");
+        assertThat(provider.getRefreshCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("concurrent callers after expiry trigger exactly one refresh")
+    void concurrentExpiryRefreshesOnce() throws Exception {
+        expectTokens(3600, 100);
+        provider = provider(clock);
+        provider.getToken();
+        clock.advance(Duration.ofHours(1));
+
+        int callers = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> tokens = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            tokens.add(pool.submit(() -> {
+                start.await();
+                return provider.getToken();
+            }));
+        }
+        start.countDown();
+        for (Future<String> token : tokens) {
+            assertThat(token.get()).isEqualTo("token-2");
+        }
+        pool.shutdown();
+
+        assertThat(provider.getRefreshCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("a 401 forces a refresh before expiry, but only for the token that was rejected")
+    void rejectedTokenForcesRefresh() {
+        expectTokens(3600, 0);
+        provider = provider(clock);
+        String rejected = provider.getToken();
+
+        assertThat(provider.refreshRejected(rejected)).isEqualTo("token-2");
+        assertThat(provider.refreshRejected(rejected)).isEqualTo("token-2");
+        assertThat(provider.getRefreshCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("renews the token in the background before it expires")
+    void refreshesAhead() throws InterruptedException {
+        expectTokens(61, 0);
+        provider = provider(Clock.systemUTC());
+        provider.getToken();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (provider.getRefreshCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(provider.getRefreshCount()).isGreaterThanOrEqualTo(2);
+        assertThat(provider.getToken()).isNotEqualTo("token-1");
+    }
+
+    @Test
+    @DisplayName("throws ProviderAuthenticationException when the response has no access_token")
+    void throwsWhenTokenMissing() {
+        server.expect(requestTo(AUTH_URL))
+                .andRespond(withSuccess("{\"error\":\"invalid_client\"}", MediaType.APPLICATION_JSON));
+        provider = provider(clock);
+
+        assertThatThrownBy(provider::getToken)
+                .isInstanceOf(ProviderAuthenticationException.class)
+                .hasMessageContaining("Failed to obtain Spotify access token");
+    }
+
+    private SpotifyTokenProvider provider(Clock clock) {
+        return new SpotifyTokenProvider(restClient, AUTH_URL, "test-client-id", "test-client-secret",
+                Duration.ofMinutes(5), false, clock);
+    }
+
+    /** Every token request gets a new token ({@code token-1}, {@code token-2}, ...) after the given delay. */
+    private void expectTokens(long expiresInSeconds, long delayMillis) {
+        ResponseCreator tokens = request -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String body = "{\"access_token\":\"token-" + issued.incrementAndGet()
+                    + "\",\"expires_in\":" + expiresInSeconds + "}";
+            return withSuccess(body, MediaType.APPLICATION_JSON).createResponse(request);
+        };
+        server.expect(ExpectedCount.manyTimes(), requestTo(AUTH_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(tokens);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.fbaron.tracker.spotify.mapper;
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.data.spotify.entity.SpotifyAlbum;
 import com.fbaron.tracker.data.spotify.entity.SpotifyArtist;
+import com.fbaron.tracker.data.spotify.entity.SpotifyImage;
 import com.fbaron.tracker.data.spotify.entity.SpotifyTrackItem;
 import com.fbaron.tracker.data.spotify.mapper.SpotifyMapper;
 import com.fbaron.tracker.data.spotify.mapper.SpotifyMapperImpl;
@@ -46,6 +47,25 @@ class SpotifyMapperTest {
         assertThat(track.isExplicit()).isTrue();
         assertThat(track.getPlaybackSeconds()).isEqualTo(185L); // 185000 ms -> 185 s
         assertThat(track.getCoverPath()).isNull();
+        assertThat(track.getCoverUrl()).isNull();
+    }
+
+    @Test
+    @DisplayName("toModel takes the first album image of the search result as cover URL")
+    void toModel_mapsFirstAlbumImageAsCoverUrl() {
+        SpotifyTrackItem item = new SpotifyTrackItem(
+                "Track",
+                false,
+                1000L,
+                new SpotifyAlbum("id", "Album", List.of(
+                        new SpotifyImage("https://i.scdn.co/image/640"),
+                        new SpotifyImage("https://i.scdn.co/image/300"))),
+                List.of(new SpotifyArtist("Artist"))
+        );
+
+        Track track = mapper.toModel(item, "ISRC123");
+
+        assertThat(track.getCoverUrl()).isEqualTo("https://i.scdn.co/image/640");
     }
 
     @Test
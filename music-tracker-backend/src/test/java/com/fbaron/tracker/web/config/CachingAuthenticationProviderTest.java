@@ -0,0 +1,140 @@
+package com.fbaron.tracker.web.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link CachingAuthenticationProvider} with a mocked delegate provider. */
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    @Test
+    @DisplayName("verifies a credential pair once and serves later logins from the cache")
+    void cachesSuccessfulLogin() {
+        when(delegate.authenticate(any())).thenAnswer(invocation -> authenticated(invocation.getArgument(0)));
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100);
+
+        Authentication first = provider.authenticate(login("admin", "secret"));
+        Authentication second = provider.authenticate(login("admin", "secret"));
+
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getName()).isEqualTo(first.getName());
+        assertThat(second.getCredentials()).isNull();
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("every cache hit gets its own authentication instance")
+    void hitsReturnDistinctInstances() {
+        when(delegate.authenticate(any())).thenAnswer(invocation -> authenticated(invocation.getArgument(0)));
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100);
+        provider.authenticate(login("admin", "secret"));
+
+        Authentication first = provider.authenticate(login("admin", "secret"));
+        Authentication second = provider.authenticate(login("admin", "secret"));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getPrincipal()).isEqualTo(first.getPrincipal());
+        assertThat(second.getAuthorities()).isEqualTo(first.getAuthorities());
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("a different password for the same user is verified by the delegate")
+    void differentPasswordIsVerified() {
+        when(delegate.authenticate(any()))
+                .thenAnswer(invocation -> authenticated(invocation.getArgument(0)))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100);
+        provider.authenticate(login("admin", "secret"));
+
+        assertThatThrownBy(() -> provider.authenticate(login("admin", "guess")))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("failed logins are never cached")
+    void failuresAreNotCached() {
+        when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> provider.authenticate(login("admin", "guess")))
+                    .isInstanceOf(BadCredentialsException.class);
+        }
+
+        verify(delegate, times(3)).authenticate(any());
+        assertThat(provider.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("entries expire after the TTL")
+    void entriesExpire() {
+        when(delegate.authenticate(any())).thenAnswer(invocation -> authenticated(invocation.getArgument(0)));
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ZERO, 100);
+
+        provider.authenticate(login("admin", "secret"));
+        provider.authenticate(login("admin", "secret"));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("other authentication types go straight to the delegate")
+    void otherTokensAreDelegated() {
+        Authentication token = new TestingAuthenticationToken("admin", "secret");
+        when(delegate.authenticate(token)).thenReturn(token);
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100);
+
+        provider.authenticate(token);
+        provider.authenticate(token);
+
+        verify(delegate, times(2)).authenticate(token);
+    }
+
+    @Test
+    @DisplayName("publishes hit and miss counts")
+    void publishesStats() {
+        when(delegate.authenticate(any())).thenAnswer(invocation -> authenticated(invocation.getArgument(0)));
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        provider.bindTo(registry);
+
+        provider.authenticate(login("admin", "secret"));
+        provider.authenticate(login("admin", "secret"));
+
+        assertThat(registry.get("cache.gets").tag("cache", "credentials").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private static Authentication login(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+
+    private static Authentication authenticated(Authentication login) {
+        return UsernamePasswordAuthenticationToken.authenticated(login.getName(), login.getCredentials(),
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+    }
+}
@@ -3,12 +3,14 @@ package com.fbaron.tracker.web.exception;
 import com.fbaron.tracker.core.exception.FileReadException;
 import com.fbaron.tracker.core.exception.ImageNotFoundException;
 import com.fbaron.tracker.core.exception.ProviderAuthenticationException;
+import com.fbaron.tracker.core.exception.ProviderUnavailableException;
 import com.fbaron.tracker.core.exception.StorageException;
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +20,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.client.ResourceAccessException;
 
 import java.net.ConnectException;
+import java.time.Duration;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -36,6 +39,27 @@ class GlobalExceptionHandlerTest {
         handler = new GlobalExceptionHandler();
     }
 
+    @Nested
+    @DisplayName("handleProviderUnavailable")
+    class ProviderUnavailable {
+
+        @Test
+        @DisplayName("returns 503 with Retry-After rounded up to whole seconds")
+        void returns503WithRetryAfter() {
+            ProviderUnavailableException ex =
+                    new ProviderUnavailableException("Provider busy", Duration.ofMillis(1500));
+
+            ResponseEntity<ProblemDetail> response = handler.handleProviderUnavailable(ex);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+            ProblemDetail body = response.getBody();
+            assertThat(body).isNotNull();
+            assertThat(body.getTitle()).isEqualTo("Music Provider Unavailable");
+            assertThat(body.getDetail()).isEqualTo("Provider busy");
+        }
+    }
+
     @Nested
     @DisplayName("handleProviderAuthenticationException")
     class ProviderAuthentication {
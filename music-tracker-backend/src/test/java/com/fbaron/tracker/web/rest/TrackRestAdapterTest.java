@@ -1,30 +1,52 @@
 package com.fbaron.tracker.web.rest;
 
 import com.fbaron.tracker.core.exception.TrackNotFoundException;
+import com.fbaron.tracker.core.model.CoverSize;
 import com.fbaron.tracker.core.model.RegistrationResult;
+import com.fbaron.tracker.core.model.StoredCover;
 import com.fbaron.tracker.core.model.Track;
 import com.fbaron.tracker.core.usecase.GetCoverImageUseCase;
 import com.fbaron.tracker.core.usecase.GetTrackUseCase;
 import com.fbaron.tracker.core.usecase.RegisterTrackUseCase;
+import com.fbaron.tracker.data.storage.ByteBufferCoverImage;
+import com.fbaron.tracker.data.storage.FileCoverImage;
 import com.fbaron.tracker.web.config.SecurityConfig;
 import com.fbaron.tracker.web.dto.TrackDto;
 import com.fbaron.tracker.web.mapper.TrackDtoMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.DigestUtils;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /** Slice tests for {@link TrackRestAdapter}: REST endpoints with mocked use cases and HTTP Basic auth. */
@@ -36,9 +58,12 @@ class TrackRestAdapterTest {
     private static final String TRACK_JSON = "{\"isrCode\":\"USMC18620549\"}";
     private static final String TEST_USER = "testuser";
     private static final String TEST_PASSWORD = "testpass";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
 
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private TrackRestAdapter trackRestAdapter;
 
     @MockitoBean
     private RegisterTrackUseCase registerTrackUseCase;
@@ -54,7 +79,8 @@ class TrackRestAdapterTest {
     void returns401WhenUnauthenticated() throws Exception {
         mockMvc.perform(get("/api/v1/tracks/{isrCode}", ISRC)
                         .accept(MediaType.APPLICATION_JSON))
-                .andExpect(status().isUnauthorized());
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist("Server-Timing"));
     }
 
     @Nested
@@ -76,6 +102,47 @@ class TrackRestAdapterTest {
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON));
         }
 
+        @Test
+        @DisplayName("carries a Server-Timing header, allowed for the calling origin")
+        void carriesServerTiming() throws Exception {
+            Track track = track(ISRC);
+            when(getTrackUseCase.getTrackByIsrCode(ISRC)).thenReturn(track);
+            when(trackDtoMapper.toDto(track)).thenReturn(toDto(track));
+
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}", ISRC)
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD))
+                            .header(HttpHeaders.ORIGIN, "http://localhost:5173")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Server-Timing", matchesPattern("total;dur=\\d+\\.\\d")))
+                    .andExpect(header().string("Timing-Allow-Origin", "http://localhost:5173"))
+                    .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Server-Timing"));
+        }
+
+        @Test
+        @DisplayName("returns 304 without a body when If-None-Match carries the ETag, a hash of the body sent")
+        void returns304WhenETagMatches() throws Exception {
+            Track track = track(ISRC);
+            TrackDto dto = toDto(track);
+            when(getTrackUseCase.getTrackByIsrCode(ISRC)).thenReturn(track);
+            when(trackDtoMapper.toDto(track)).thenReturn(dto);
+
+            MockHttpServletResponse full = mockMvc.perform(get("/api/v1/tracks/{isrCode}", ISRC)
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=604800, private"))
+                    .andReturn().getResponse();
+            String eTag = full.getHeader(HttpHeaders.ETAG);
+            assertThat(eTag).isEqualTo("\"" + DigestUtils.md5DigestAsHex(full.getContentAsByteArray()) + "\"");
+
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}", ISRC)
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD))
+                            .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                    .andExpect(content().bytes(new byte[0]));
+        }
+
         @Test
         @DisplayName("returns 404 when track not found")
         void returns404WhenNotFound() throws Exception {
@@ -142,19 +209,120 @@ class TrackRestAdapterTest {
         @DisplayName("returns 200 and image when found")
         void returns200WhenFound() throws Exception {
             byte[] imageBytes = new byte[]{1, 2, 3};
-            when(getCoverImageUseCase.getCoverImage(ISRC)).thenReturn(imageBytes);
+            StoredCover cover = storedCover(imageBytes.length);
+            when(getCoverImageUseCase.findCover(ISRC, CoverSize.ORIGINAL)).thenReturn(cover);
+            when(getCoverImageUseCase.getCoverImage(cover))
+                    .thenReturn(new ByteBufferCoverImage(ByteBuffer.wrap(imageBytes), LAST_MODIFIED));
 
             mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
                             .with(httpBasic(TEST_USER, TEST_PASSWORD))
                             .accept(MediaType.IMAGE_JPEG_VALUE))
                     .andExpect(status().isOk())
-                    .andExpect(content().contentType(MediaType.IMAGE_JPEG));
+                    .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, imageBytes.length))
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"3-18bcfe56800\""))
+                    .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=604800, private"))
+                    .andExpect(content().bytes(imageBytes));
+        }
+
+        @Test
+        @DisplayName("returns 304 without reading the image when If-None-Match carries the ETag")
+        void returns304WithoutReading() throws Exception {
+            when(getCoverImageUseCase.findCover(ISRC, CoverSize.ORIGINAL)).thenReturn(storedCover(3));
+
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD))
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"3-18bcfe56800\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"3-18bcfe56800\""))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=604800, private"))
+                    .andExpect(content().bytes(new byte[0]));
+            verify(getCoverImageUseCase, never()).getCoverImage(any());
+        }
+
+        @Test
+        @DisplayName("returns 304 without reading the image when If-Modified-Since is not older than the file")
+        void returns304ForIfModifiedSince() throws Exception {
+            when(getCoverImageUseCase.findCover(ISRC, CoverSize.ORIGINAL)).thenReturn(storedCover(3));
+
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD))
+                            .header(HttpHeaders.IF_MODIFIED_SINCE, DateTimeFormatter.RFC_1123_DATE_TIME
+                                    .format(Instant.ofEpochMilli(LAST_MODIFIED).atZone(ZoneOffset.UTC))))
+                    .andExpect(status().isNotModified());
+            verify(getCoverImageUseCase, never()).getCoverImage(any());
+        }
+
+        @Test
+        @DisplayName("returns 206 and the requested bytes of a file-backed cover")
+        void returns206ForRange(@TempDir Path storage) throws Exception {
+            Path cover = Files.write(storage.resolve("album-123.jpg"), new byte[]{1, 2, 3, 4, 5});
+            StoredCover stored = storedCover(5);
+            when(getCoverImageUseCase.findCover(ISRC, CoverSize.ORIGINAL)).thenReturn(stored);
+            when(getCoverImageUseCase.getCoverImage(stored)).thenReturn(new FileCoverImage(cover, 5, LAST_MODIFIED));
+
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD))
+                            .header(HttpHeaders.RANGE, "bytes=1-3"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-3/5"))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 3))
+                    .andExpect(content().bytes(new byte[]{2, 3, 4}));
+        }
+
+        @Test
+        @DisplayName("returns 416 when the range starts past the end of the cover")
+        void returns416ForUnsatisfiableRange() throws Exception {
+            StoredCover cover = storedCover(3);
+            when(getCoverImageUseCase.findCover(ISRC, CoverSize.ORIGINAL)).thenReturn(cover);
+            when(getCoverImageUseCase.getCoverImage(cover))
+                    .thenReturn(new ByteBufferCoverImage(ByteBuffer.wrap(new byte[]{1, 2, 3}), LAST_MODIFIED));
+
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD))
+                            .header(HttpHeaders.RANGE, "bytes=10-20"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */3"));
+        }
+
+        @Test
+        @DisplayName("serves the requested size and counts the bytes sent per size")
+        void servesRequestedSize() throws Exception {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            trackRestAdapter.bindTo(registry);
+            byte[] thumbnail = new byte[]{9, 8};
+            StoredCover cover = storedCover(thumbnail.length);
+            when(getCoverImageUseCase.findCover(ISRC, CoverSize.SMALL)).thenReturn(cover);
+            when(getCoverImageUseCase.getCoverImage(cover))
+                    .thenReturn(new ByteBufferCoverImage(ByteBuffer.wrap(thumbnail), LAST_MODIFIED));
+
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
+                            .param("size", "Small")
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(thumbnail));
+
+            assertThat(registry.get("tracks.covers.served.bytes").tag("size", "small").functionCounter().count())
+                    .isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("returns 400 for an unknown size")
+        void returns400ForUnknownSize() throws Exception {
+            mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
+                            .param("size", "huge")
+                            .with(httpBasic(TEST_USER, TEST_PASSWORD)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.title").value("Invalid Parameter"));
+            verify(getCoverImageUseCase, never()).findCover(any(), any());
         }
 
         @Test
         @DisplayName("returns 404 when track not found")
         void returns404WhenNotFound() throws Exception {
-            when(getCoverImageUseCase.getCoverImage(ISRC))
+            when(getCoverImageUseCase.findCover(ISRC, CoverSize.ORIGINAL))
                     .thenThrow(new TrackNotFoundException("Track not found: " + ISRC));
 
             mockMvc.perform(get("/api/v1/tracks/{isrCode}/cover", ISRC)
@@ -164,6 +332,10 @@ class TrackRestAdapterTest {
         }
     }
 
+    private static StoredCover storedCover(long contentLength) {
+        return new StoredCover("/path/cover.jpg", contentLength, LAST_MODIFIED);
+    }
+
     private static Track track(String isrCode) {
         return Track.builder()
                 .isrCode(isrCode)
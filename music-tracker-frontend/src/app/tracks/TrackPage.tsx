@@ -27,7 +27,7 @@ const TrackPage = () => {
       .unwrap()
       .then(async (track) => {
         dispatch(setTrack(track));
-        await getCover(track.isrCode).unwrap().catch(() => {});
+        await getCover({ isrCode: track.isrCode, size: "medium" }).unwrap().catch(() => {});
         navigate(`/tracks/${encodeURIComponent(track.isrCode)}`);
         return track;
       });
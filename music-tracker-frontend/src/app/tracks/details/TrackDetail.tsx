@@ -105,9 +105,10 @@ export function TrackDetail() {
 
 function TrackDetailContent({ track }: { track: Track }) {
   const [imgError, setImgError] = useState(false);
-  const { data: coverBlob } = useGetTrackCoverQuery(track.isrCode, {
-    skip: !track.isrCode,
-  });
+  const { data: coverBlob } = useGetTrackCoverQuery(
+    { isrCode: track.isrCode, size: "medium" },
+    { skip: !track.isrCode },
+  );
   const [coverUrl, setCoverUrl] = useState<string>("");
 
   useEffect(() => {
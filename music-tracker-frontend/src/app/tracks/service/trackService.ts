@@ -2,6 +2,9 @@ import { createApi, fetchBaseQuery } from "@reduxjs/toolkit/query/react";
 import type { RootState } from "../../config/store";
 import type { Track } from "../model/Track";
 
+/** Cover sizes served by the backend: 64px thumbnail, 300px detail image, or the stored original. */
+export type CoverSize = "small" | "medium" | "original";
+
 const BASE_URL =
   (import.meta.env.VITE_BACKEND_API ?? "http://localhost:8080/tracker") +
   "/api/v1";
@@ -44,14 +47,15 @@ export const trackService = createApi({
         { type: "Tracks", id: "LIST" },
       ],
     }),
-    /** GET /api/v1/tracks/{isrCode}/cover - cover image (JPEG blob) for use in <img> via object URL */
-    getTrackCover: builder.query<Blob, string>({
-      query: (isrCode) => ({
+    /** GET /api/v1/tracks/{isrCode}/cover?size= - cover image (JPEG blob) for use in <img> via object URL */
+    getTrackCover: builder.query<Blob, { isrCode: string; size: CoverSize }>({
+      query: ({ isrCode, size }) => ({
         url: `/tracks/${encodeURIComponent(isrCode)}/cover`,
+        params: { size },
         responseHandler: (response) => response.blob(),
       }),
-      providesTags: (_result, _error, isrCode) => [
-        { type: "Tracks", id: `${isrCode}-cover` },
+      providesTags: (_result, _error, { isrCode, size }) => [
+        { type: "Tracks", id: `${isrCode}-cover-${size}` },
       ],
     }),
   }),
@@ -31,9 +31,10 @@ export function TrackList({ tracks }: TrackListProps) {
 
 function TrackListItem({ track }: { track: Track }) {
   const [imgError, setImgError] = useState(false);
-  const { data: coverBlob } = useGetTrackCoverQuery(track.isrCode, {
-    skip: !track.isrCode,
-  });
+  const { data: coverBlob } = useGetTrackCoverQuery(
+    { isrCode: track.isrCode, size: "small" },
+    { skip: !track.isrCode },
+  );
   const [coverUrl, setCoverUrl] = useState<string>("");
 
   useEffect(() => {